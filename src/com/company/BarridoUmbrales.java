@@ -0,0 +1,212 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Clase que evalúa la compresión Run-Length con pérdida para muchos umbrales a la vez, sin generar ni
+ * descomprimir ningún archivo. Para cada umbral se simulan las corridas de CodificadorRunLength y se
+ * calcula el tamaño exacto del archivo binario, el error cuadrático medio y el error máximo.
+ *
+ * Todos los umbrales de una tarea se evalúan en una única pasada sobre los píxeles, manteniendo por
+ * cada umbral sólo el estado de la corrida en curso; los umbrales se reparten entre tantas tareas como
+ * hilos tenga el pool.
+ *
+ * También puede simularse el formato por bandas de CodificadorRunLength, en el que las corridas se
+ * cortan al comienzo de cada banda y la cabecera incluye el índice de bandas.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class BarridoUmbrales {
+
+    // Número mágico, ancho y alto del formato Run-Length binario
+    private static final int TAMANIO_CABECERA = 12;
+
+    // Filas por banda y cantidad de bandas del formato por bandas, a las que se suman 8 bytes por banda
+    private static final int TAMANIO_CABECERA_BANDAS = TAMANIO_CABECERA + 8;
+
+    /**
+     * Método estático que calcula la curva tasa-distorsión de una imagen, utilizando el pool común de hilos.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbrales Umbrales a evaluar.
+     * @return Lista con un punto por umbral, en el mismo orden que los umbrales.
+     */
+    public static List<PuntoDistorsion> evaluar(int[] pixeles, int[] umbrales)
+    {
+        return evaluar(pixeles, umbrales, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que calcula la curva tasa-distorsión de una imagen.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbrales Umbrales a evaluar.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @return Lista con un punto por umbral, en el mismo orden que los umbrales.
+     */
+    public static List<PuntoDistorsion> evaluar(int[] pixeles, int[] umbrales, ForkJoinPool pool)
+    {
+        return evaluar(pixeles, umbrales, Math.max(1, pixeles.length), TAMANIO_CABECERA, pool);
+    }
+
+    /**
+     * Método estático que calcula la curva tasa-distorsión de una imagen comprimida en el formato por
+     * bandas, utilizando el pool común de hilos.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbrales Umbrales a evaluar.
+     * @param ancho_img Ancho de la imagen.
+     * @param filas_por_banda Cantidad de filas de cada banda.
+     * @return Lista con un punto por umbral, en el mismo orden que los umbrales.
+     */
+    public static List<PuntoDistorsion> evaluarBandas(int[] pixeles, int[] umbrales, int ancho_img, int filas_por_banda)
+    {
+        return evaluarBandas(pixeles, umbrales, ancho_img, filas_por_banda, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que calcula la curva tasa-distorsión de una imagen comprimida en el formato por
+     * bandas.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbrales Umbrales a evaluar.
+     * @param ancho_img Ancho de la imagen.
+     * @param filas_por_banda Cantidad de filas de cada banda.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @return Lista con un punto por umbral, en el mismo orden que los umbrales.
+     */
+    public static List<PuntoDistorsion> evaluarBandas(int[] pixeles, int[] umbrales, int ancho_img, int filas_por_banda,
+                                                      ForkJoinPool pool)
+    {
+        int alto_img = ancho_img == 0 ? 0 : pixeles.length / ancho_img;
+        int cantidad_bandas = (alto_img + filas_por_banda - 1) / filas_por_banda;
+        int largo_banda = Math.max(1, ancho_img * filas_por_banda);
+
+        return evaluar(pixeles, umbrales, largo_banda, TAMANIO_CABECERA_BANDAS + 8L * cantidad_bandas, pool);
+    }
+
+    /**
+     * Método privado que reparte los umbrales entre tantas tareas como hilos tenga el pool.
+     * @param pixeles Niveles de gris de la imagen.
+     * @param umbrales Umbrales a evaluar.
+     * @param largo_banda Cantidad de píxeles de cada banda; las corridas se cortan al comienzo de cada una.
+     * @param cabecera Tamaño de la cabecera del archivo, en bytes.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @return Lista con un punto por umbral, en el mismo orden que los umbrales.
+     */
+    private static List<PuntoDistorsion> evaluar(int[] pixeles, int[] umbrales, int largo_banda, long cabecera,
+                                                 ForkJoinPool pool)
+    {
+        PuntoDistorsion[] puntos = new PuntoDistorsion[umbrales.length];
+        int cantidad_tareas = Math.max(1, Math.min(umbrales.length, pool.getParallelism()));
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+        for (int t = 0; t < cantidad_tareas; t++) {
+            final int desde = t * umbrales.length / cantidad_tareas;
+            final int hasta = (t + 1) * umbrales.length / cantidad_tareas;
+            tareas.add(pool.submit(() -> evaluar(pixeles, umbrales, largo_banda, cabecera, desde, hasta, puntos)));
+        }
+
+        for (ForkJoinTask<?> tarea : tareas)
+            tarea.join();
+
+        List<PuntoDistorsion> curva = new ArrayList<>();
+        for (PuntoDistorsion punto : puntos)
+            curva.add(punto);
+
+        return curva;
+    }
+
+    /**
+     * Método estático que elige, entre los puntos cuyo archivo no supera un tamaño, el de menor error.
+     * @param curva Curva obtenida con evaluar().
+     * @param bytes_maximos Tamaño máximo permitido del archivo, en bytes.
+     * @return Punto elegido, o null si ningún umbral cumple con el tamaño.
+     */
+    public static PuntoDistorsion elegirPorTamanio(List<PuntoDistorsion> curva, long bytes_maximos)
+    {
+        PuntoDistorsion elegido = null;
+
+        for (PuntoDistorsion punto : curva)
+            if (punto.getBytes() <= bytes_maximos &&
+                    (elegido == null || punto.getErrorCuadraticoMedio() < elegido.getErrorCuadraticoMedio()))
+                elegido = punto;
+
+        return elegido;
+    }
+
+    /**
+     * Método estático que elige, entre los puntos que alcanzan una calidad mínima, el de menor tamaño.
+     * @param curva Curva obtenida con evaluar().
+     * @param psnr_minima PSNR mínima requerida, en decibeles.
+     * @return Punto elegido, o null si ningún umbral alcanza la calidad.
+     */
+    public static PuntoDistorsion elegirPorCalidad(List<PuntoDistorsion> curva, double psnr_minima)
+    {
+        PuntoDistorsion elegido = null;
+
+        for (PuntoDistorsion punto : curva)
+            if (punto.getPSNR() >= psnr_minima && (elegido == null || punto.getBytes() < elegido.getBytes()))
+                elegido = punto;
+
+        return elegido;
+    }
+
+    /**
+     * Método privado que evalúa un rango de umbrales en una única pasada sobre los píxeles.
+     * @param pixeles Niveles de gris de la imagen.
+     * @param umbrales Umbrales a evaluar.
+     * @param largo_banda Cantidad de píxeles de cada banda; las corridas se cortan al comienzo de cada una.
+     * @param cabecera Tamaño de la cabecera del archivo, en bytes.
+     * @param desde Posición del primer umbral a evaluar.
+     * @param hasta Posición siguiente al último umbral a evaluar.
+     * @param puntos Arreglo donde se deposita el punto de cada umbral evaluado.
+     */
+    private static void evaluar(int[] pixeles, int[] umbrales, int largo_banda, long cabecera, int desde, int hasta,
+                                PuntoDistorsion[] puntos)
+    {
+        int cantidad = hasta - desde;
+        int[] valor = new int[cantidad];
+        int[] longitud = new int[cantidad];
+        long[] bytes = new long[cantidad];
+        long[] error_cuadratico = new long[cantidad];
+        int[] error_maximo = new int[cantidad];
+
+        for (int i = 0; i < pixeles.length; i++) {
+            int p = pixeles[i];
+            boolean corte = i % largo_banda == 0;
+
+            for (int u = 0; u < cantidad; u++) {
+                int diferencia = Math.abs(p - valor[u]);
+
+                if (!corte && diferencia <= umbrales[desde + u]) {
+                    longitud[u]++;
+                    error_cuadratico[u] += diferencia * diferencia;
+                    error_maximo[u] = Math.max(error_maximo[u], diferencia);
+                } else {
+                    if (longitud[u] > 0)
+                        bytes[u] += getBytesCorrida(longitud[u]);
+                    valor[u] = p;
+                    longitud[u] = 1;
+                }
+            }
+        }
+
+        for (int u = 0; u < cantidad; u++) {
+            if (longitud[u] > 0)
+                bytes[u] += getBytesCorrida(longitud[u]);
+
+            double mse = pixeles.length == 0 ? 0 : (double) error_cuadratico[u] / pixeles.length;
+            puntos[desde + u] = new PuntoDistorsion(umbrales[desde + u], cabecera + bytes[u], mse, error_maximo[u]);
+        }
+    }
+
+    /**
+     * Método privado que calcula cuántos bytes ocupa una corrida en el formato Run-Length binario: uno para
+     * el valor y uno cada 7 bits de la longitud.
+     * @param longitud Longitud de la corrida.
+     * @return Cantidad de bytes de la corrida.
+     */
+    private static int getBytesCorrida(int longitud)
+    {
+        return 1 + (32 - Integer.numberOfLeadingZeros(longitud) + 6) / 7;
+    }
+}
@@ -0,0 +1,77 @@
+package com.company;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Clase que compara el tiempo de decodificación de TablaDecodificacion y TablaDecodificacionMultiple sobre
+ * las imágenes BMP pasadas como argumento. Cada imagen se comprime en formato canónico a un archivo
+ * temporal y se decodifica repetidas veces con cada tabla, informando el mejor tiempo obtenido.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class BenchmarkDecodificacion {
+
+    private static final int REPETICIONES = 50;
+
+    /**
+     * Inicio de la ejecución.
+     * @param args Rutas de las imágenes BMP a utilizar.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        for (String ruta : args) {
+            BufferedImage img = ImageIO.read(new File(ruta));
+            int ancho = img.getWidth();
+            int alto = img.getHeight();
+            int[] pixeles = ConversorPixeles.getGrises(img, null);
+
+            File temporal = File.createTempFile("benchmark", ".huff");
+            String nombre = temporal.getPath().substring(0, temporal.getPath().length() - ".huff".length());
+            byte[] longitudes = ConstructorHuffman.getLongitudes(Utils.getConteos(pixeles, 256));
+            CodificadorHuffmanNuevo.comprimirCanonico(pixeles, longitudes, nombre, ancho, alto);
+
+            double nanos_simple = medir(temporal, CodificadorHuffmanNuevo.crearDecodificador(longitudes, false), pixeles);
+            double nanos_multiple = medir(temporal, CodificadorHuffmanNuevo.crearDecodificador(longitudes, true), pixeles);
+
+            System.out.println(ruta + " (" + ancho + "x" + alto + ")");
+            System.out.println("  Un símbolo por consulta:      " + Utils.round(nanos_simple / 1e6, 3) + " ms");
+            System.out.println("  Varios símbolos por consulta: " + Utils.round(nanos_multiple / 1e6, 3) + " ms" +
+                    " (x" + Utils.round(nanos_simple / nanos_multiple, 2) + ")");
+
+            temporal.delete();
+        }
+    }
+
+    /**
+     * Método privado que decodifica el archivo varias veces con la tabla indicada y retorna el mejor tiempo.
+     * @param archivo Archivo en formato canónico.
+     * @param decodificador Tabla a medir.
+     * @param esperado Píxeles originales, para verificar la decodificación.
+     * @return Mejor tiempo de decodificación en nanosegundos.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida o la decodificación sea incorrecta.
+     */
+    private static double medir(File archivo, DecodificadorSimbolos decodificador, int[] esperado) throws IOException
+    {
+        int[] pixeles = new int[esperado.length];
+        long mejor = Long.MAX_VALUE;
+
+        for (int i = 0; i < REPETICIONES; i++) {
+            ByteBuffer datos = LectorBits.mapearArchivo(archivo);
+            CabeceraHuff.leer(datos);
+
+            long inicio = System.nanoTime();
+            decodificador.decodificar(new LectorBits(datos), pixeles, 0, pixeles.length);
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+
+        if (!Arrays.equals(pixeles, esperado))
+            throw new IOException("La decodificación no coincide con la imagen original");
+
+        return mejor;
+    }
+}
@@ -0,0 +1,427 @@
+package com.company;
+
+import java.util.Arrays;
+
+/**
+ * Clase que busca el ancho de solapamiento y el desplazamiento vertical entre dos imágenes en escala de grises
+ * de igual alto, una a la izquierda de la otra, mediante una pirámide de resoluciones. Cada nivel de la
+ * pirámide reduce a la mitad el ancho y el alto del anterior promediando bloques de 2 x 2 píxeles.
+ *
+ * En el nivel más reducido se evalúan todos los anchos y desplazamientos posibles, y se conservan como candidatos
+ * los CANTIDAD_CANDIDATOS máximos locales de mayor correlación. En cada nivel siguiente los candidatos se duplican
+ * y sólo se evalúan los anchos y desplazamientos a distancia VENTANA_REFINAMIENTO de ellos, hasta llegar a la
+ * resolución original. Allí se evalúan además todos los anchos menores a 2^niveles + VENTANA_REFINAMIENTO y los
+ * últimos anchos de la misma cantidad, que la reducción no puede representar. Así el costo deja de crecer con el
+ * cuadrado del ancho de búsqueda, como en BusquedaSolapamiento, y pasa a depender sólo de la cantidad de
+ * candidatos por nivel.
+ *
+ * La búsqueda no garantiza el mismo resultado que la exhaustiva: un máximo que no sobresale en ningún nivel
+ * reducido puede perderse.
+ *
+ * La correlación tiene la misma definición que en BusquedaSolapamientoFourier, por lo que en la resolución
+ * original coincide exactamente con la de BusquedaSolapamiento para desplazamiento 0. Ante empates se elige el
+ * menor desplazamiento y el mayor ancho.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class BusquedaPiramidal {
+
+    /**
+     * Cantidad de mejores candidatos que se conservan entre un nivel y el siguiente.
+     */
+    public static final int CANTIDAD_CANDIDATOS = 4;
+
+    /**
+     * Distancia, en columnas y en filas, alrededor de cada candidato duplicado que se evalúa en el nivel siguiente.
+     */
+    public static final int VENTANA_REFINAMIENTO = 3;
+
+    /**
+     * Alto y ancho mínimos que debe tener una imagen para generar un nivel más de la pirámide.
+     */
+    public static final int TAMANIO_MINIMO = 16;
+
+    private static final double NO_EVALUADO = -1.d;
+
+    private final int niveles;
+    private int columnas_coincidentes = 0;
+    private int desplazamiento_vertical = 0;
+    private double max_corr = 0.d;
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto.
+     * @param izquierda Matriz en escala de grises de la imagen izquierda.
+     * @param derecha Matriz en escala de grises de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar en cada sentido.
+     * @param niveles Cantidad máxima de reducciones; se generan menos si la imagen queda por debajo de TAMANIO_MINIMO.
+     */
+    public BusquedaPiramidal(int[][] izquierda, int[][] derecha, int maximo_columnas, int maximo_desplazamiento, int niveles)
+    {
+        this(VistaImagen.deMatriz(izquierda), VistaImagen.deMatriz(derecha), maximo_columnas, maximo_desplazamiento, niveles);
+    }
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto.
+     * @param izquierda Vista en escala de grises de la imagen izquierda.
+     * @param derecha Vista en escala de grises de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar en cada sentido.
+     * @param niveles Cantidad máxima de reducciones; se generan menos si la imagen queda por debajo de TAMANIO_MINIMO.
+     */
+    public BusquedaPiramidal(VistaImagen izquierda, VistaImagen derecha, int maximo_columnas, int maximo_desplazamiento, int niveles)
+    {
+        this(generarPiramide(izquierda, niveles), generarPiramide(derecha, niveles), maximo_columnas, maximo_desplazamiento);
+    }
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto a partir de sus pirámides, generadas con
+     * generarPiramide(). Permite reutilizar la pirámide de una imagen en todos los pares en que participa. Se
+     * utilizan tantos niveles como tenga la pirámide más corta.
+     * @param piramide_izquierda Pirámide de la imagen izquierda.
+     * @param piramide_derecha Pirámide de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar en cada sentido.
+     */
+    public BusquedaPiramidal(VistaImagen[] piramide_izquierda, VistaImagen[] piramide_derecha, int maximo_columnas, int maximo_desplazamiento)
+    {
+        if (piramide_izquierda[0].getAlto() != piramide_derecha[0].getAlto())
+            throw new IllegalArgumentException("Las imágenes deben tener el mismo alto");
+
+        int nivel = Math.min(piramide_izquierda.length, piramide_derecha.length) - 1;
+        this.niveles = nivel;
+
+        // Búsqueda exhaustiva en el nivel más reducido
+        int[] candidatos_w = new int[CANTIDAD_CANDIDATOS];
+        int[] candidatos_d = new int[CANTIDAD_CANDIDATOS];
+        double[] candidatos_corr = new double[CANTIDAD_CANDIDATOS];
+
+        VistaImagen a = piramide_izquierda[nivel];
+        VistaImagen b = piramide_derecha[nivel];
+        int m = getMaximoColumnas(a, b, maximo_columnas >> nivel);
+        int dm = getMaximoDesplazamiento(a, maximo_desplazamiento >> nivel);
+        double[][] correlaciones = getGrilla(m, dm);
+        for (int d = -dm; d <= dm; d++)
+            for (int w = 1; w <= m; w++)
+                evaluar(a, b, correlaciones, w, d, dm);
+        int cantidad = getMaximosLocales(correlaciones, m, dm, candidatos_w, candidatos_d, candidatos_corr);
+
+        // Refinamiento alrededor de los candidatos en cada nivel con el doble de resolución
+        while (nivel > 0) {
+            nivel--;
+            a = piramide_izquierda[nivel];
+            b = piramide_derecha[nivel];
+            m = getMaximoColumnas(a, b, maximo_columnas >> nivel);
+            dm = getMaximoDesplazamiento(a, maximo_desplazamiento >> nivel);
+            correlaciones = getGrilla(m, dm);
+
+            for (int c = 0; c < cantidad; c++) {
+                int desde_w = Math.max(1, 2 * candidatos_w[c] - VENTANA_REFINAMIENTO);
+                int hasta_w = Math.min(m, 2 * candidatos_w[c] + VENTANA_REFINAMIENTO);
+                int desde_d = Math.max(-dm, 2 * candidatos_d[c] - VENTANA_REFINAMIENTO);
+                int hasta_d = Math.min(dm, 2 * candidatos_d[c] + VENTANA_REFINAMIENTO);
+
+                for (int d = desde_d; d <= hasta_d; d++)
+                    for (int w = desde_w; w <= hasta_w; w++)
+                        evaluar(a, b, correlaciones, w, d, dm);
+            }
+
+            // En la resolución original se evalúan además todos los anchos que el nivel más reducido no puede
+            // representar: los menores a 2^niveles, que allí quedan en 0 columnas, y los últimos, que se pierden
+            // al truncar el ancho de búsqueda
+            if (nivel == 0) {
+                int borde = (1 << this.niveles) + VENTANA_REFINAMIENTO;
+                for (int d = -dm; d <= dm; d++) {
+                    for (int w = 1; w <= Math.min(m, borde - 1); w++)
+                        evaluar(a, b, correlaciones, w, d, dm);
+                    for (int w = Math.max(borde, m - borde + 1); w <= m; w++)
+                        evaluar(a, b, correlaciones, w, d, dm);
+                }
+            }
+
+            cantidad = getMaximosLocales(correlaciones, m, dm, candidatos_w, candidatos_d, candidatos_corr);
+        }
+
+        if (cantidad > 0) {
+            max_corr = candidatos_corr[0];
+            columnas_coincidentes = candidatos_w[0];
+            desplazamiento_vertical = candidatos_d[0];
+        }
+    }
+
+    /**
+     * Retorna la cantidad de reducciones efectivamente generadas.
+     * @return Cantidad de niveles de la pirámide, sin contar la resolución original.
+     */
+    public int getNiveles() {
+        return niveles;
+    }
+
+    /**
+     * Retorna la correlación del solapamiento elegido, o 0 si ninguna es positiva.
+     * @return Máxima correlación encontrada.
+     */
+    public double getMaxCorrelacion() {
+        return max_corr;
+    }
+
+    /**
+     * Retorna el ancho de solapamiento elegido.
+     * @return Ancho de solapamiento, o 0 si ninguna correlación es positiva.
+     */
+    public int getColumnasCoincidentes() {
+        return columnas_coincidentes;
+    }
+
+    /**
+     * Retorna el desplazamiento vertical elegido: la fila y de la imagen derecha corresponde a la fila
+     * y + getDesplazamientoVertical() de la izquierda.
+     * @return Desplazamiento vertical, en filas.
+     */
+    public int getDesplazamientoVertical() {
+        return desplazamiento_vertical;
+    }
+
+    /**
+     * Método estático que genera la pirámide de resoluciones de una imagen en escala de grises. El nivel 0 es la
+     * propia vista, sin copiarla.
+     * @param vista Vista en escala de grises, que ocupa el nivel 0.
+     * @param niveles Cantidad máxima de reducciones; se generan menos si la imagen queda por debajo de TAMANIO_MINIMO.
+     * @return Arreglo con la vista de cada nivel, de mayor a menor resolución.
+     */
+    public static VistaImagen[] generarPiramide(VistaImagen vista, int niveles)
+    {
+        int cantidad = 0;
+        while (cantidad < niveles && vista.getAlto() >> (cantidad + 1) >= TAMANIO_MINIMO && vista.getAncho() >> (cantidad + 1) >= TAMANIO_MINIMO)
+            cantidad++;
+
+        VistaImagen[] piramide = new VistaImagen[cantidad + 1];
+        piramide[0] = vista;
+        for (int nivel = 1; nivel <= cantidad; nivel++)
+            piramide[nivel] = reducir(piramide[nivel - 1]);
+
+        return piramide;
+    }
+
+    /**
+     * Método estático que reduce a la mitad el ancho y el alto de una imagen en escala de grises, promediando
+     * cada bloque de 2 x 2 píxeles. Si alguna dimensión es impar, la última fila o columna se descarta.
+     * @param vista Vista en escala de grises.
+     * @return Vista sobre un arreglo nuevo con la imagen reducida.
+     */
+    public static VistaImagen reducir(VistaImagen vista)
+    {
+        int alto = vista.getAlto() / 2;
+        int ancho = vista.getAncho() / 2;
+        int[] datos = vista.getDatos();
+        int[] reducida = new int[alto * ancho];
+
+        for (int y = 0; y < alto; y++) {
+            int fila_1 = vista.getIndice(0, 2 * y);
+            int fila_2 = vista.getIndice(0, 2 * y + 1);
+            int destino = y * ancho;
+
+            for (int x = 0; x < ancho; x++)
+                reducida[destino + x] = (datos[fila_1 + 2 * x] + datos[fila_1 + 2 * x + 1] + datos[fila_2 + 2 * x] + datos[fila_2 + 2 * x + 1] + 2) >> 2;
+        }
+
+        return new VistaImagen(reducida, ancho, alto);
+    }
+
+    /**
+     * Método privado que calcula la correlación entre las últimas w columnas de la imagen izquierda y las primeras
+     * w de la derecha, con la fila y de la derecha alineada a la fila y + d de la izquierda.
+     * @param izquierda Vista de la imagen izquierda.
+     * @param derecha Vista de la imagen derecha.
+     * @param w Ancho de solapamiento.
+     * @param d Desplazamiento vertical.
+     * @return Correlación entre las zonas solapadas.
+     */
+    private static double getCorrelacion(VistaImagen izquierda, VistaImagen derecha, int w, int d)
+    {
+        int desde = Math.max(0, -d);
+        int hasta = Math.min(derecha.getAlto(), izquierda.getAlto() - d);
+        int[] a = izquierda.getDatos();
+        int[] b = derecha.getDatos();
+
+        long producto = 0, norma_a = 0, norma_b = 0;
+        for (int y = desde; y < hasta; y++) {
+            int inicio_a = izquierda.getIndice(izquierda.getAncho() - w, y + d);
+            int inicio_b = derecha.getIndice(0, y);
+
+            for (int x = 0; x < w; x++) {
+                int va = a[inicio_a + x];
+                int vb = b[inicio_b + x];
+                producto += va * vb;
+                norma_a += va * va;
+                norma_b += vb * vb;
+            }
+        }
+
+        return producto / Math.sqrt((double) norma_a * (double) norma_b);
+    }
+
+    /**
+     * Método privado que genera la grilla de correlaciones de un nivel, indexada por [d + dm][w], con todos los
+     * solapamientos marcados como no evaluados.
+     * @param m Ancho máximo de solapamiento del nivel.
+     * @param dm Desplazamiento máximo del nivel.
+     * @return Grilla de correlaciones.
+     */
+    private static double[][] getGrilla(int m, int dm)
+    {
+        double[][] correlaciones = new double[2 * dm + 1][m + 1];
+        for (double[] fila : correlaciones)
+            Arrays.fill(fila, NO_EVALUADO);
+
+        return correlaciones;
+    }
+
+    /**
+     * Método privado que calcula la correlación de un solapamiento y la guarda en la grilla, si no fue calculada
+     * antes. Las correlaciones indefinidas de zonas completamente negras se guardan como 0.
+     * @param izquierda Vista de la imagen izquierda.
+     * @param derecha Vista de la imagen derecha.
+     * @param correlaciones Grilla de correlaciones del nivel.
+     * @param w Ancho de solapamiento.
+     * @param d Desplazamiento vertical.
+     * @param dm Desplazamiento máximo del nivel.
+     */
+    private static void evaluar(VistaImagen izquierda, VistaImagen derecha, double[][] correlaciones, int w, int d, int dm)
+    {
+        if (correlaciones[d + dm][w] != NO_EVALUADO)
+            return;
+
+        double corr = getCorrelacion(izquierda, derecha, w, d);
+        correlaciones[d + dm][w] = corr > 0 ? corr : 0;
+    }
+
+    /**
+     * Método privado que conserva como candidatos los CANTIDAD_CANDIDATOS mejores máximos locales de la grilla:
+     * los solapamientos evaluados tales que ninguno de sus ocho vecinos evaluados es preferible. Así cada pico de
+     * correlación aporta un único candidato, y un pico angosto no queda desplazado por los vecinos de otro más
+     * ancho.
+     * @param correlaciones Grilla de correlaciones del nivel.
+     * @param m Ancho máximo de solapamiento del nivel.
+     * @param dm Desplazamiento máximo del nivel.
+     * @param candidatos_w Anchos de los candidatos.
+     * @param candidatos_d Desplazamientos de los candidatos.
+     * @param candidatos_corr Correlaciones de los candidatos.
+     * @return Cantidad de candidatos cargados.
+     */
+    private static int getMaximosLocales(double[][] correlaciones, int m, int dm, int[] candidatos_w, int[] candidatos_d, double[] candidatos_corr)
+    {
+        int cantidad = 0;
+        for (int d = -dm; d <= dm; d++) {
+            for (int w = 1; w <= m; w++) {
+                double corr = correlaciones[d + dm][w];
+                if (!(corr > 0) || !esMaximoLocal(correlaciones, m, dm, w, d))
+                    continue;
+
+                cantidad = agregar(candidatos_w, candidatos_d, candidatos_corr, cantidad, w, d, corr);
+            }
+        }
+
+        return cantidad;
+    }
+
+    /**
+     * Método privado que indica si ninguno de los vecinos evaluados de un solapamiento es preferible a él.
+     * @param correlaciones Grilla de correlaciones del nivel.
+     * @param m Ancho máximo de solapamiento del nivel.
+     * @param dm Desplazamiento máximo del nivel.
+     * @param w Ancho del solapamiento.
+     * @param d Desplazamiento del solapamiento.
+     * @return Booleano que indica si el solapamiento es un máximo local.
+     */
+    private static boolean esMaximoLocal(double[][] correlaciones, int m, int dm, int w, int d)
+    {
+        double corr = correlaciones[d + dm][w];
+        for (int vd = Math.max(-dm, d - 1); vd <= Math.min(dm, d + 1); vd++) {
+            for (int vw = Math.max(1, w - 1); vw <= Math.min(m, w + 1); vw++) {
+                if ((vd != d || vw != w) && esMejor(correlaciones[vd + dm][vw], vw, vd, corr, w, d))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Método privado que agrega un solapamiento a la lista de mejores candidatos, ordenada de mayor a menor
+     * correlación, si su correlación es positiva y supera a alguno de ellos. Ante igual correlación se prefiere
+     * el menor desplazamiento y, luego, el mayor ancho.
+     * @param candidatos_w Anchos de los candidatos.
+     * @param candidatos_d Desplazamientos de los candidatos.
+     * @param candidatos_corr Correlaciones de los candidatos.
+     * @param cantidad Cantidad de candidatos cargados.
+     * @param w Ancho del solapamiento a agregar.
+     * @param d Desplazamiento del solapamiento a agregar.
+     * @param corr Correlación del solapamiento a agregar.
+     * @return Nueva cantidad de candidatos cargados.
+     */
+    private static int agregar(int[] candidatos_w, int[] candidatos_d, double[] candidatos_corr, int cantidad, int w, int d, double corr)
+    {
+        // Descarta también las correlaciones indefinidas de zonas completamente negras
+        if (!(corr > 0))
+            return cantidad;
+
+        int posicion = cantidad;
+        while (posicion > 0 && esMejor(corr, w, d, candidatos_corr[posicion - 1], candidatos_w[posicion - 1], candidatos_d[posicion - 1]))
+            posicion--;
+
+        if (posicion >= candidatos_w.length)
+            return cantidad;
+
+        int ultima = Math.min(cantidad, candidatos_w.length - 1);
+        for (int i = ultima; i > posicion; i--) {
+            candidatos_w[i] = candidatos_w[i - 1];
+            candidatos_d[i] = candidatos_d[i - 1];
+            candidatos_corr[i] = candidatos_corr[i - 1];
+        }
+        candidatos_w[posicion] = w;
+        candidatos_d[posicion] = d;
+        candidatos_corr[posicion] = corr;
+
+        return Math.min(cantidad + 1, candidatos_w.length);
+    }
+
+    /**
+     * Método privado que indica si un solapamiento es preferible a otro.
+     * @param corr Correlación del primer solapamiento.
+     * @param w Ancho del primer solapamiento.
+     * @param d Desplazamiento del primer solapamiento.
+     * @param otra_corr Correlación del segundo solapamiento.
+     * @param otro_w Ancho del segundo solapamiento.
+     * @param otro_d Desplazamiento del segundo solapamiento.
+     * @return Booleano que indica si el primer solapamiento es preferible al segundo.
+     */
+    private static boolean esMejor(double corr, int w, int d, double otra_corr, int otro_w, int otro_d)
+    {
+        if (corr != otra_corr)
+            return corr > otra_corr;
+        if (Math.abs(d) != Math.abs(otro_d))
+            return Math.abs(d) < Math.abs(otro_d);
+        return w > otro_w;
+    }
+
+    /**
+     * Método privado que acota el ancho de búsqueda al de la imagen más angosta.
+     * @param izquierda Vista de la imagen izquierda.
+     * @param derecha Vista de la imagen derecha.
+     * @param maximo_columnas Ancho máximo pedido.
+     * @return Ancho máximo a evaluar.
+     */
+    private static int getMaximoColumnas(VistaImagen izquierda, VistaImagen derecha, int maximo_columnas) {
+        return Math.max(0, Math.min(maximo_columnas, Math.min(izquierda.getAncho(), derecha.getAncho())));
+    }
+
+    /**
+     * Método privado que acota el desplazamiento de búsqueda a la mitad del alto.
+     * @param vista Vista de cualquiera de las imágenes.
+     * @param maximo_desplazamiento Desplazamiento máximo pedido.
+     * @return Desplazamiento máximo a evaluar.
+     */
+    private static int getMaximoDesplazamiento(VistaImagen vista, int maximo_desplazamiento) {
+        return Math.max(0, Math.min(maximo_desplazamiento, vista.getAlto() / 2));
+    }
+}
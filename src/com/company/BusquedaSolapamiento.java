@@ -0,0 +1,155 @@
+package com.company;
+
+/**
+ * Clase que busca el ancho de solapamiento entre dos imágenes en escala de grises, una a la izquierda de la
+ * otra. Para cada ancho candidato w se calcula la correlación entre las últimas w columnas de la imagen
+ * izquierda y las primeras w columnas de la derecha, con la misma definición que Utils.getCorrelacion():
+ *   corr(w) = (A . B) / sqrt(|A|^2 |B|^2)
+ *
+ * Todas las correlaciones se calculan una única vez al construir el objeto, sin copiar submatrices:
+ * - Las normas se obtienen de sumas acumuladas de la norma al cuadrado de cada columna (desde la derecha
+ *   en la imagen izquierda y desde la izquierda en la derecha), por lo que cada ancho las consulta en O(1).
+ * - Cada ancho alinea un par de columnas distinto, por lo que los productos internos se acumulan recorriendo
+ *   una vez cada fila de ambas imágenes, como productos entre tramos contiguos de la fila.
+ * Las sumas se llevan en enteros de 64 bits, por lo que el resultado coincide exactamente con el de
+ * Utils.getCorrelacion().
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class BusquedaSolapamiento {
+
+    private final double[] correlaciones;
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto, calculando la correlación de cada ancho
+     * entre 1 y maximo_columnas (acotado al ancho de la imagen más angosta). Sólo se copian las franjas de
+     * columnas que se comparan.
+     * @param izquierda Matriz en escala de grises de la imagen izquierda.
+     * @param derecha Matriz en escala de grises de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     */
+    public BusquedaSolapamiento(int[][] izquierda, int[][] derecha, int maximo_columnas)
+    {
+        this(getFranja(izquierda, derecha, maximo_columnas, true), getFranja(izquierda, derecha, maximo_columnas, false), maximo_columnas);
+    }
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto, calculando la correlación de cada ancho
+     * entre 1 y maximo_columnas (acotado al ancho de la imagen más angosta).
+     * @param izquierda Vista en escala de grises de la imagen izquierda.
+     * @param derecha Vista en escala de grises de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     */
+    public BusquedaSolapamiento(VistaImagen izquierda, VistaImagen derecha, int maximo_columnas)
+    {
+        if (izquierda.getAlto() != derecha.getAlto())
+            throw new IllegalArgumentException("Las imágenes deben tener el mismo alto");
+
+        int maximo = Math.max(0, Math.min(maximo_columnas, Math.min(izquierda.getAncho(), derecha.getAncho())));
+
+        long[] productos = new long[maximo + 1];
+        long[] normas_izquierda = new long[maximo + 1];
+        long[] normas_derecha = new long[maximo + 1];
+
+        int[] a = izquierda.getDatos();
+        int[] b = derecha.getDatos();
+        for (int fila = 0; fila < izquierda.getAlto(); fila++) {
+            int fin_a = izquierda.getIndice(izquierda.getAncho(), fila);
+            int inicio_b = derecha.getIndice(0, fila);
+
+            for (int w = 1; w <= maximo; w++) {
+                int desde = fin_a - w;
+
+                long producto = 0;
+                for (int k = 0; k < w; k++)
+                    producto += a[desde + k] * b[inicio_b + k];
+                productos[w] += producto;
+
+                normas_izquierda[w] += a[desde] * a[desde];
+                normas_derecha[w] += b[inicio_b + w - 1] * b[inicio_b + w - 1];
+            }
+        }
+
+        // Hasta acá cada posición tiene la norma de una única columna; se acumulan hacia los anchos mayores
+        for (int w = 2; w <= maximo; w++) {
+            normas_izquierda[w] += normas_izquierda[w - 1];
+            normas_derecha[w] += normas_derecha[w - 1];
+        }
+
+        correlaciones = new double[maximo + 1];
+        for (int w = 1; w <= maximo; w++)
+            correlaciones[w] = productos[w] / Math.sqrt((double) normas_izquierda[w] * (double) normas_derecha[w]);
+    }
+
+    /**
+     * Retorna el máximo ancho evaluado.
+     * @return Máximo ancho de solapamiento evaluado.
+     */
+    public int getMaximoColumnas() {
+        return correlaciones.length - 1;
+    }
+
+    /**
+     * Retorna la correlación para un ancho de solapamiento.
+     * @param columnas Ancho de solapamiento, entre 1 y getMaximoColumnas().
+     * @return Correlación entre las columnas solapadas.
+     */
+    public double getCorrelacion(int columnas) {
+        return correlaciones[columnas];
+    }
+
+    /**
+     * Retorna la máxima correlación entre todos los anchos evaluados, o 0 si ninguna es positiva.
+     * @return Máxima correlación.
+     */
+    public double getMaxCorrelacion()
+    {
+        double max_corr = 0.d;
+
+        for (int w = correlaciones.length - 1; w > 0; w--)
+            if (correlaciones[w] > max_corr)
+                max_corr = correlaciones[w];
+
+        return max_corr;
+    }
+
+    /**
+     * Retorna el ancho de solapamiento con la máxima correlación. Ante empates se elige el mayor, y una
+     * correlación perfecta corta la búsqueda, como en Utils.getColumnasCoincidentes().
+     * @return Ancho de solapamiento, o 0 si ninguna correlación es positiva.
+     */
+    public int getColumnasCoincidentes()
+    {
+        double max_corr = 0.d;
+        int columna = 0;
+
+        for (int w = correlaciones.length - 1; w > 0; w--) {
+            if (correlaciones[w] > max_corr) {
+                max_corr = correlaciones[w];
+                columna = w;
+
+                if (max_corr == 1.0d)
+                    return w;
+            }
+        }
+
+        return columna;
+    }
+
+    /**
+     * Método estático que copia la franja de columnas que interviene en la búsqueda: las últimas de la imagen
+     * izquierda o las primeras de la derecha.
+     * @param izquierda Matriz de la imagen izquierda.
+     * @param derecha Matriz de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     * @param es_izquierda TRUE: copia la franja de la imagen izquierda; FALSE: la de la derecha.
+     * @return Vista sobre la franja copiada.
+     */
+    static VistaImagen getFranja(int[][] izquierda, int[][] derecha, int maximo_columnas, boolean es_izquierda)
+    {
+        int ancho_izquierda = izquierda.length == 0 ? 0 : izquierda[0].length;
+        int ancho_derecha = derecha.length == 0 ? 0 : derecha[0].length;
+        int maximo = Math.max(0, Math.min(maximo_columnas, Math.min(ancho_izquierda, ancho_derecha)));
+
+        return es_izquierda ? VistaImagen.deMatriz(izquierda, ancho_izquierda - maximo, maximo) : VistaImagen.deMatriz(derecha, 0, maximo);
+    }
+}
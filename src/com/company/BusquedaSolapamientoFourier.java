@@ -0,0 +1,306 @@
+package com.company;
+
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+/**
+ * Clase que busca en conjunto el ancho de solapamiento y el desplazamiento vertical entre dos imágenes en
+ * escala de grises de igual alto, una a la izquierda de la otra. Para un ancho w y un desplazamiento d se
+ * comparan las últimas w columnas de la imagen izquierda con las primeras w columnas de la derecha, donde la
+ * fila y de la derecha corresponde a la fila y + d de la izquierda, y sólo se consideran las filas presentes
+ * en ambas. La correlación tiene la misma definición que Utils.getCorrelacion():
+ *   corr(w, d) = (A . B) / sqrt(|A|^2 |B|^2)
+ *
+ * Los productos internos de todos los pares (w, d) se obtienen juntos como una correlación cruzada en dos
+ * dimensiones, calculada con la transformada rápida de Fourier en O(P Q log(P Q)), siendo P y Q las
+ * potencias de 2 que contienen al alto más el desplazamiento máximo y al doble del ancho de búsqueda. Como
+ * los productos son enteros, el resultado de la transformada se redondea al entero más cercano y coincide
+ * exactamente con la suma directa. Las normas se consultan en O(1) en sumas acumuladas en dos dimensiones de
+ * los cuadrados de cada franja, de modo que con desplazamiento 0 las correlaciones son idénticas a las de
+ * BusquedaSolapamiento.
+ *
+ * La transformada de cada franja y sus sumas acumuladas se guardan en un EspectroFranja, por lo que al comparar
+ * una imagen con varias otras puede transformarse una única vez y cada par sólo multiplica los espectros y
+ * antitransforma el resultado.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class BusquedaSolapamientoFourier {
+
+    private final int maximo_columnas;
+    private final int maximo_desplazamiento;
+    private final double[][] correlaciones;
+
+    private int columnas_coincidentes = 0;
+    private int desplazamiento_vertical = 0;
+    private double max_corr = 0.d;
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto, calculando la correlación de cada ancho entre 1
+     * y maximo_columnas (acotado al ancho de la imagen más angosta) y de cada desplazamiento vertical entre
+     * -maximo_desplazamiento y maximo_desplazamiento (acotado a la mitad del alto). Sólo se copian las franjas de
+     * columnas que se comparan.
+     * @param izquierda Matriz en escala de grises de la imagen izquierda.
+     * @param derecha Matriz en escala de grises de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar en cada sentido.
+     */
+    public BusquedaSolapamientoFourier(int[][] izquierda, int[][] derecha, int maximo_columnas, int maximo_desplazamiento)
+    {
+        this(BusquedaSolapamiento.getFranja(izquierda, derecha, maximo_columnas, true),
+                BusquedaSolapamiento.getFranja(izquierda, derecha, maximo_columnas, false), maximo_columnas, maximo_desplazamiento);
+    }
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto, calculando la correlación de cada ancho entre 1
+     * y maximo_columnas (acotado al ancho de la imagen más angosta) y de cada desplazamiento vertical entre
+     * -maximo_desplazamiento y maximo_desplazamiento (acotado a la mitad del alto).
+     * @param izquierda Vista en escala de grises de la imagen izquierda.
+     * @param derecha Vista en escala de grises de la imagen derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar en cada sentido.
+     */
+    public BusquedaSolapamientoFourier(VistaImagen izquierda, VistaImagen derecha, int maximo_columnas, int maximo_desplazamiento)
+    {
+        this(new EspectroFranja(izquierda, true, getMaximoColumnas(izquierda, derecha, maximo_columnas), maximo_desplazamiento),
+                new EspectroFranja(derecha, false, getMaximoColumnas(izquierda, derecha, maximo_columnas), maximo_desplazamiento));
+    }
+
+    /**
+     * Genera la búsqueda para un par de imágenes de igual alto a partir de los espectros de sus franjas,
+     * calculando la correlación de cada ancho entre 1 y el ancho de la franja más angosta, y de cada
+     * desplazamiento vertical hasta el máximo con que se generaron. Permite reutilizar los espectros de una
+     * imagen en todos los pares en que participa, por lo que cada par sólo multiplica y antitransforma.
+     * @param izquierda Espectro de las últimas columnas de la imagen izquierda.
+     * @param derecha Espectro de las primeras columnas de la imagen derecha.
+     */
+    public BusquedaSolapamientoFourier(EspectroFranja izquierda, EspectroFranja derecha)
+    {
+        if (izquierda.getAlto() != derecha.getAlto())
+            throw new IllegalArgumentException("Las imágenes deben tener el mismo alto");
+        if (!izquierda.esIzquierda() || derecha.esIzquierda() || izquierda.getFilas() != derecha.getFilas() ||
+                izquierda.getColumnas() != derecha.getColumnas())
+            throw new IllegalArgumentException("Los espectros no se generaron con los mismos parámetros de búsqueda");
+
+        int alto = izquierda.getAlto();
+        int ancho_izquierda = izquierda.getAncho();
+        int ancho_derecha = derecha.getAncho();
+        int m = Math.min(ancho_izquierda, ancho_derecha);
+        int dm = izquierda.getMaximoDesplazamiento();
+        int p = izquierda.getFilas();
+        int q = izquierda.getColumnas();
+
+        this.maximo_columnas = m;
+        this.maximo_desplazamiento = dm;
+        this.correlaciones = new double[2 * dm + 1][m + 1];
+
+        if (m == 0)
+            return;
+
+        // Correlación cruzada: c(dx, d) = suma de A[y + d][x + dx] * B[y][x] = IFFT(FFT(A) * conj(FFT(B)))
+        double[][] a = izquierda.getTransformada();
+        double[][] b = derecha.getTransformada();
+        double[][] producto = new double[2][p * q];
+        for (int i = 0; i < p * q; i++) {
+            producto[0][i] = a[0][i] * b[0][i] + a[1][i] * b[1][i];
+            producto[1][i] = a[1][i] * b[0][i] - a[0][i] * b[1][i];
+        }
+        antitransformar(producto, p, q, dm);
+
+        // El ancho w alinea las últimas w columnas de la franja izquierda con las primeras de la derecha
+        long[] energias_a = izquierda.getEnergias();
+        long[] energias_b = derecha.getEnergias();
+        for (int d = -dm; d <= dm; d++) {
+            int fila = ((d % p) + p) % p;
+            int desde = Math.max(0, -d);
+            int hasta = Math.min(alto, alto - d);
+
+            for (int w = 1; w <= m; w++) {
+                int dx = ancho_izquierda - w;
+                long valor = Math.round(producto[0][fila * q + dx]);
+                long norma_a = getEnergia(energias_a, ancho_izquierda, desde + d, hasta + d, dx, ancho_izquierda);
+                long norma_b = getEnergia(energias_b, ancho_derecha, desde, hasta, 0, w);
+
+                correlaciones[d + dm][w] = valor / Math.sqrt((double) norma_a * (double) norma_b);
+            }
+        }
+
+        // Se recorren los desplazamientos de menor a mayor valor absoluto y los anchos de mayor a menor, por
+        // lo que ante empates se elige el menor desplazamiento y el mayor ancho
+        for (int k = 0; k <= 2 * dm; k++) {
+            int d = (k % 2 == 0) ? k / 2 : -(k + 1) / 2;
+
+            for (int w = m; w > 0; w--) {
+                if (correlaciones[d + dm][w] > max_corr) {
+                    max_corr = correlaciones[d + dm][w];
+                    columnas_coincidentes = w;
+                    desplazamiento_vertical = d;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna el máximo ancho evaluado.
+     * @return Máximo ancho de solapamiento evaluado.
+     */
+    public int getMaximoColumnas() {
+        return maximo_columnas;
+    }
+
+    /**
+     * Retorna el máximo desplazamiento vertical evaluado en cada sentido.
+     * @return Máximo desplazamiento vertical evaluado.
+     */
+    public int getMaximoDesplazamiento() {
+        return maximo_desplazamiento;
+    }
+
+    /**
+     * Retorna la correlación para un ancho de solapamiento y un desplazamiento vertical.
+     * @param columnas Ancho de solapamiento, entre 1 y getMaximoColumnas().
+     * @param desplazamiento Desplazamiento vertical, entre -getMaximoDesplazamiento() y getMaximoDesplazamiento().
+     * @return Correlación entre las zonas solapadas.
+     */
+    public double getCorrelacion(int columnas, int desplazamiento) {
+        return correlaciones[desplazamiento + maximo_desplazamiento][columnas];
+    }
+
+    /**
+     * Retorna la máxima correlación entre todos los anchos y desplazamientos evaluados, o 0 si ninguna es positiva.
+     * @return Máxima correlación.
+     */
+    public double getMaxCorrelacion() {
+        return max_corr;
+    }
+
+    /**
+     * Retorna el ancho de solapamiento con la máxima correlación.
+     * @return Ancho de solapamiento, o 0 si ninguna correlación es positiva.
+     */
+    public int getColumnasCoincidentes() {
+        return columnas_coincidentes;
+    }
+
+    /**
+     * Retorna el desplazamiento vertical con la máxima correlación: la fila y de la imagen derecha corresponde a
+     * la fila y + getDesplazamientoVertical() de la izquierda.
+     * @return Desplazamiento vertical, en filas.
+     */
+    public int getDesplazamientoVertical() {
+        return desplazamiento_vertical;
+    }
+
+    /**
+     * Método estático que aplica la transformada de Fourier en dos dimensiones, sobre las filas y luego sobre las
+     * columnas, a una matriz compleja de p x q almacenada por filas.
+     * @param datos Partes real e imaginaria de la matriz; se sobrescriben con el resultado.
+     * @param p Cantidad de filas, potencia de 2.
+     * @param q Cantidad de columnas, potencia de 2.
+     * @param filas_con_datos Cantidad de filas iniciales no nulas; el resto se omite en la pasada por filas.
+     */
+    static void transformar(double[][] datos, int p, int q, int filas_con_datos)
+    {
+        for (int y = 0; y < filas_con_datos; y++)
+            transformarFila(datos, q, y, TransformType.FORWARD);
+
+        transformarColumnas(datos, p, q, TransformType.FORWARD);
+    }
+
+    /**
+     * Método privado que aplica la antitransformada de Fourier en dos dimensiones, sobre las columnas y luego
+     * sobre las filas, calculando sólo las filas que corresponden a desplazamientos entre -maximo_desplazamiento
+     * y maximo_desplazamiento.
+     * @param datos Partes real e imaginaria de la matriz; se sobrescriben con el resultado.
+     * @param p Cantidad de filas, potencia de 2.
+     * @param q Cantidad de columnas, potencia de 2.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo requerido.
+     */
+    private static void antitransformar(double[][] datos, int p, int q, int maximo_desplazamiento)
+    {
+        transformarColumnas(datos, p, q, TransformType.INVERSE);
+
+        for (int d = -maximo_desplazamiento; d <= maximo_desplazamiento; d++)
+            transformarFila(datos, q, (d + p) % p, TransformType.INVERSE);
+    }
+
+    /**
+     * Método privado que aplica la transformada de Fourier a una fila de una matriz compleja almacenada por filas.
+     * @param datos Partes real e imaginaria de la matriz; se sobrescriben con el resultado.
+     * @param q Cantidad de columnas, potencia de 2.
+     * @param y Fila a transformar.
+     * @param tipo Sentido de la transformada.
+     */
+    private static void transformarFila(double[][] datos, int q, int y, TransformType tipo)
+    {
+        double[][] fila = new double[2][q];
+        System.arraycopy(datos[0], y * q, fila[0], 0, q);
+        System.arraycopy(datos[1], y * q, fila[1], 0, q);
+        FastFourierTransformer.transformInPlace(fila, DftNormalization.STANDARD, tipo);
+        System.arraycopy(fila[0], 0, datos[0], y * q, q);
+        System.arraycopy(fila[1], 0, datos[1], y * q, q);
+    }
+
+    /**
+     * Método privado que aplica la transformada de Fourier a todas las columnas de una matriz compleja de p x q
+     * almacenada por filas.
+     * @param datos Partes real e imaginaria de la matriz; se sobrescriben con el resultado.
+     * @param p Cantidad de filas, potencia de 2.
+     * @param q Cantidad de columnas, potencia de 2.
+     * @param tipo Sentido de la transformada.
+     */
+    private static void transformarColumnas(double[][] datos, int p, int q, TransformType tipo)
+    {
+        double[][] columna = new double[2][p];
+        for (int x = 0; x < q; x++) {
+            for (int y = 0; y < p; y++) {
+                columna[0][y] = datos[0][y * q + x];
+                columna[1][y] = datos[1][y * q + x];
+            }
+            FastFourierTransformer.transformInPlace(columna, DftNormalization.STANDARD, tipo);
+            for (int y = 0; y < p; y++) {
+                datos[0][y * q + x] = columna[0][y];
+                datos[1][y * q + x] = columna[1][y];
+            }
+        }
+    }
+
+    /**
+     * Método privado que retorna la suma de los cuadrados de un rectángulo de una franja, a partir de sus sumas
+     * acumuladas.
+     * @param energias Sumas acumuladas de (alto + 1) x (ancho + 1) elementos.
+     * @param ancho Ancho de la franja.
+     * @param fila_desde Primera fila del rectángulo.
+     * @param fila_hasta Fila siguiente a la última del rectángulo.
+     * @param columna_desde Primera columna del rectángulo.
+     * @param columna_hasta Columna siguiente a la última del rectángulo.
+     * @return Suma de los cuadrados de los valores del rectángulo.
+     */
+    private static long getEnergia(long[] energias, int ancho, int fila_desde, int fila_hasta, int columna_desde, int columna_hasta)
+    {
+        int n = ancho + 1;
+        return energias[fila_hasta * n + columna_hasta] - energias[fila_desde * n + columna_hasta]
+                - energias[fila_hasta * n + columna_desde] + energias[fila_desde * n + columna_desde];
+    }
+
+    /**
+     * Método privado que acota el ancho de búsqueda al de la imagen más angosta.
+     * @param izquierda Vista de la imagen izquierda.
+     * @param derecha Vista de la imagen derecha.
+     * @param maximo_columnas Ancho máximo pedido.
+     * @return Ancho máximo a evaluar.
+     */
+    private static int getMaximoColumnas(VistaImagen izquierda, VistaImagen derecha, int maximo_columnas) {
+        return Math.max(0, Math.min(maximo_columnas, Math.min(izquierda.getAncho(), derecha.getAncho())));
+    }
+
+    /**
+     * Método estático que retorna la menor potencia de 2 mayor o igual a un valor.
+     * @param valor Valor mínimo.
+     * @return Potencia de 2.
+     */
+    static int getPotencia(int valor)
+    {
+        return valor <= 1 ? 1 : Integer.highestOneBit(valor - 1) << 1;
+    }
+}
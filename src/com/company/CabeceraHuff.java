@@ -0,0 +1,659 @@
+package com.company;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Clase que define la cabecera binaria de los archivos HUFF autocontenidos. A diferencia del formato
+ * original, que sólo guarda las dimensiones de la imagen, esta cabecera incluye la longitud del código
+ * canónico de cada símbolo, de manera que para descomprimir no hace falta el archivo con la distribución
+ * de probabilidades.
+ *
+ * El formato es el siguiente (enteros en big-endian):
+ * - 4 bytes: número mágico "HUF1".
+ * - 1 byte: modo de compresión.
+ * - 4 bytes: ancho de la imagen.
+ * - 4 bytes: alto de la imagen.
+ * - 2 bytes: cantidad de símbolos del alfabeto (N).
+ * - N bytes: longitud del código de cada símbolo, en orden (0 si el símbolo no aparece). En los modos que
+ *   no utilizan un código fijo, N es 0.
+ *
+ * En el modo por bloques la imagen se divide en franjas de filas que se codifican de forma independiente,
+ * y a continuación de las longitudes se agrega:
+ * - 4 bytes: cantidad de filas por bloque.
+ * - 4 bytes: cantidad de bloques (B).
+ * - B x 8 bytes: posición, en bits, del comienzo de cada bloque respecto del final de la cabecera.
+ *
+ * En el modo rANS no hay longitudes de código (N es 0), y en su lugar se agrega:
+ * - 2 bytes: cantidad de símbolos del alfabeto (M).
+ * - M x 2 bytes: frecuencia cuantizada de cada símbolo, en orden; suman 2^CodificadorRANS.PRECISION.
+ *
+ * En los modos por contextos y color se usa un código por contexto o por plano, por lo que tampoco hay
+ * longitudes (N es 0). En su lugar se agrega una lista de códigos, con el formato:
+ * - 1 byte: cantidad de códigos (K).
+ * - K veces: 2 bytes con la cantidad de símbolos (0 si el código no se usa), seguidos de la longitud
+ *   del código de cada símbolo, de a 4 bits (la primera en los 4 bits altos de cada byte).
+ * En el modo por contextos, la lista va precedida por 1 byte con el tipo de contexto. En el modo color,
+ * la lista va seguida de K x 8 bytes con la posición, en bits, del comienzo de cada plano respecto del
+ * final de la cabecera. En el modo Run-Length bidimensional la lista va sola, con el código de los modos
+ * de codificación y el de los niveles de gris literales.
+ *
+ * Si el bit más alto del byte de modo (PREDICCION) está encendido, los datos codificados son las
+ * diferencias de la etapa de Prediccion, y al final de la cabecera se agrega:
+ * - alto bytes: predictor utilizado en cada fila.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CabeceraHuff {
+
+    /**
+     * Número mágico con el que comienzan los archivos en formato canónico ("HUF1").
+     * Los archivos del formato original comienzan con el ancho en 16 bits, que debería valer 18517 para
+     * confundirse con este valor.
+     */
+    public static final int MAGICO = 0x48554631;
+
+    /**
+     * Modo en el que los píxeles se codifican uno detrás del otro con un único código canónico.
+     */
+    public static final byte MODO_CANONICO = 0;
+
+    /**
+     * Modo en el que la imagen se divide en franjas de filas codificadas de forma independiente, con un
+     * índice que indica dónde comienza cada una.
+     */
+    public static final byte MODO_BLOQUES = 1;
+
+    /**
+     * Modo en el que los píxeles se codifican con un modelo adaptativo, que se reconstruye a medida que se
+     * decodifica. La cabecera no lleva longitudes de código.
+     */
+    public static final byte MODO_ADAPTATIVO = 2;
+
+    /**
+     * Modo en el que los píxeles se codifican con rANS a partir de las frecuencias cuantizadas de la
+     * cabecera, en lugar de un código de Huffman.
+     */
+    public static final byte MODO_RANS = 3;
+
+    /**
+     * Modo en el que cada píxel se codifica con el código de Huffman de su contexto, elegido a partir de
+     * los píxeles vecinos.
+     */
+    public static final byte MODO_CONTEXTOS = 4;
+
+    /**
+     * Modo en el que la imagen se guarda a color, transformada a YCoCg-R, con un código por plano y cada
+     * plano codificado de forma independiente.
+     */
+    public static final byte MODO_COLOR = 5;
+
+    /**
+     * Modo en el que la imagen se divide en corridas, con el valor de cada una codificado con el código
+     * canónico de la cabecera y su longitud con Golomb-Rice adaptativo.
+     */
+    public static final byte MODO_RUNLENGTH = 6;
+
+    /**
+     * Modo en el que cada fila se divide en corridas que se codifican respecto de las corridas de la fila
+     * anterior, con los dos códigos canónicos de la lista de la cabecera.
+     */
+    public static final byte MODO_RUNLENGTH_2D = 7;
+
+    /**
+     * Bit del byte de modo que indica que los datos codificados son diferencias de predicción.
+     */
+    public static final byte PREDICCION = (byte) 0x80;
+
+    // Tamaño de la cabecera común a todos los modos, hasta la cantidad de símbolos inclusive
+    private static final int TAMANIO_FIJO = 15;
+
+    // Cantidad de niveles de gris, que acota el alfabeto de los modos en escala de grises
+    private static final int CANTIDAD_NIVELES = 256;
+
+    private final byte modo;
+    private final int ancho;
+    private final int alto;
+    private final byte[] longitudes;
+
+    private final int filas_por_bloque;
+    private final long[] desplazamientos;
+
+    private final int[] frecuencias;
+
+    private final byte tipo_contexto;
+    private final byte[][] tablas;
+
+    private final byte[] predictores;
+
+    /**
+     * Genera una cabecera con los datos requeridos.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param longitudes Longitud del código canónico de cada símbolo.
+     */
+    public CabeceraHuff(byte modo, int ancho, int alto, byte[] longitudes) {
+        this(modo, ancho, alto, longitudes, 0, new long[0]);
+    }
+
+    /**
+     * Genera una cabecera con índice de bloques.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param longitudes Longitud del código canónico de cada símbolo.
+     * @param filas_por_bloque Cantidad de filas de cada bloque (el último puede tener menos).
+     * @param desplazamientos Posición en bits del comienzo de cada bloque, respecto del final de la cabecera.
+     */
+    public CabeceraHuff(byte modo, int ancho, int alto, byte[] longitudes, int filas_por_bloque, long[] desplazamientos) {
+        this(modo, ancho, alto, longitudes, filas_por_bloque, desplazamientos, new int[0], (byte) 0, new byte[0][], new byte[0]);
+    }
+
+    /**
+     * Genera una cabecera con las frecuencias cuantizadas de cada símbolo, para el modo rANS.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param frecuencias Frecuencia cuantizada de cada símbolo.
+     */
+    public CabeceraHuff(byte modo, int ancho, int alto, int[] frecuencias) {
+        this(modo, ancho, alto, new byte[0], 0, new long[0], frecuencias, (byte) 0, new byte[0][], new byte[0]);
+    }
+
+    /**
+     * Genera una cabecera con un código canónico por contexto, para el modo por contextos.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param tipo_contexto Tipo de contexto.
+     * @param tablas Longitud del código de cada símbolo, para cada contexto.
+     */
+    public CabeceraHuff(byte modo, int ancho, int alto, byte tipo_contexto, byte[][] tablas) {
+        this(modo, ancho, alto, new byte[0], 0, new long[0], new int[0], tipo_contexto, tablas, new byte[0]);
+    }
+
+    /**
+     * Genera una cabecera con un código canónico por plano y la posición de cada plano, para el modo color.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param tablas Longitud del código de cada símbolo, para cada plano.
+     * @param desplazamientos Posición en bits del comienzo de cada plano, respecto del final de la cabecera.
+     */
+    public CabeceraHuff(byte modo, int ancho, int alto, byte[][] tablas, long[] desplazamientos) {
+        this(modo, ancho, alto, new byte[0], 0, desplazamientos, new int[0], (byte) 0, tablas, new byte[0]);
+    }
+
+    /**
+     * Genera una cabecera con una lista de códigos canónicos, para el modo Run-Length bidimensional.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param tablas Longitud del código de cada símbolo, para cada código de la lista.
+     */
+    public CabeceraHuff(byte modo, int ancho, int alto, byte[][] tablas) {
+        this(modo, ancho, alto, new byte[0], 0, new long[0], new int[0], (byte) 0, tablas, new byte[0]);
+    }
+
+    private CabeceraHuff(byte modo, int ancho, int alto, byte[] longitudes, int filas_por_bloque, long[] desplazamientos,
+                         int[] frecuencias, byte tipo_contexto, byte[][] tablas, byte[] predictores) {
+        this.modo = modo;
+        this.ancho = ancho;
+        this.alto = alto;
+        this.longitudes = longitudes;
+        this.filas_por_bloque = filas_por_bloque;
+        this.desplazamientos = desplazamientos;
+        this.frecuencias = frecuencias;
+        this.tipo_contexto = tipo_contexto;
+        this.tablas = tablas;
+        this.predictores = predictores;
+    }
+
+    /**
+     * Retorna una copia de la cabecera que indica que los datos codificados son diferencias de predicción.
+     * @param predictores Predictor utilizado en cada fila de la imagen.
+     * @return Cabecera con los predictores.
+     */
+    public CabeceraHuff conPredictores(byte[] predictores) {
+        return new CabeceraHuff(modo, ancho, alto, longitudes, filas_por_bloque, desplazamientos, frecuencias, tipo_contexto, tablas, predictores);
+    }
+
+    /**
+     * Retorna el modo de compresión.
+     * @return Modo de compresión.
+     */
+    public byte getModo() {
+        return modo;
+    }
+
+    /**
+     * Retorna el ancho de la imagen.
+     * @return Ancho de la imagen.
+     */
+    public int getAncho() {
+        return ancho;
+    }
+
+    /**
+     * Retorna el alto de la imagen.
+     * @return Alto de la imagen.
+     */
+    public int getAlto() {
+        return alto;
+    }
+
+    /**
+     * Retorna la longitud del código canónico de cada símbolo.
+     * @return Arreglo indexado por símbolo con la longitud de su código.
+     */
+    public byte[] getLongitudes() {
+        return longitudes;
+    }
+
+    /**
+     * Retorna la cantidad de filas de cada bloque, en el modo por bloques.
+     * @return Cantidad de filas por bloque.
+     */
+    public int getFilasPorBloque() {
+        return filas_por_bloque;
+    }
+
+    /**
+     * Retorna la posición en bits del comienzo de cada bloque (o plano, en el modo color), respecto del
+     * final de la cabecera.
+     * @return Arreglo con una posición por bloque.
+     */
+    public long[] getDesplazamientos() {
+        return desplazamientos;
+    }
+
+    /**
+     * Retorna la frecuencia cuantizada de cada símbolo, en el modo rANS.
+     * @return Arreglo indexado por símbolo con su frecuencia.
+     */
+    public int[] getFrecuencias() {
+        return frecuencias;
+    }
+
+    /**
+     * Retorna el tipo de contexto, en el modo por contextos.
+     * @return Tipo de contexto.
+     */
+    public byte getTipoContexto() {
+        return tipo_contexto;
+    }
+
+    /**
+     * Retorna el código canónico de cada contexto, en el modo por contextos, de cada plano, en el modo color,
+     * o los códigos de modos y niveles de gris, en el modo Run-Length bidimensional.
+     * @return Arreglo indexado por código con la longitud de cada símbolo.
+     */
+    public byte[][] getTablas() {
+        return tablas;
+    }
+
+    /**
+     * Retorna el predictor utilizado en cada fila, o un arreglo vacío si los datos no tienen predicción.
+     * @return Arreglo indexado por fila con su predictor.
+     */
+    public byte[] getPredictores() {
+        return predictores;
+    }
+
+    /**
+     * Retorna la cantidad de bytes que ocupa la cabecera en disco.
+     * @return Tamaño en bytes de la cabecera.
+     */
+    public int getTamanio() {
+        int tamanio = 15 + longitudes.length;
+
+        if (modo == MODO_BLOQUES)
+            tamanio += 8 + 8 * desplazamientos.length;
+        else if (modo == MODO_RANS)
+            tamanio += 2 + 2 * frecuencias.length;
+        else if (modo == MODO_CONTEXTOS)
+            tamanio += 1 + getTamanioTablas();
+        else if (modo == MODO_COLOR)
+            tamanio += getTamanioTablas() + 8 * desplazamientos.length;
+        else if (modo == MODO_RUNLENGTH_2D)
+            tamanio += getTamanioTablas();
+
+        tamanio += predictores.length;
+
+        return tamanio;
+    }
+
+    /**
+     * Escribe la cabecera en el canal.
+     * @param canal Canal destino.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public void escribir(WritableByteChannel canal) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(getTamanio());
+
+        buffer.putInt(MAGICO);
+        buffer.put(predictores.length > 0 ? (byte) (modo | PREDICCION) : modo);
+        buffer.putInt(ancho);
+        buffer.putInt(alto);
+        buffer.putChar((char) longitudes.length);
+        buffer.put(longitudes);
+
+        if (modo == MODO_BLOQUES) {
+            buffer.putInt(filas_por_bloque);
+            buffer.putInt(desplazamientos.length);
+            for (long desplazamiento : desplazamientos)
+                buffer.putLong(desplazamiento);
+        } else if (modo == MODO_RANS) {
+            buffer.putChar((char) frecuencias.length);
+            for (int frecuencia : frecuencias)
+                buffer.putChar((char) frecuencia);
+        } else if (modo == MODO_CONTEXTOS) {
+            buffer.put(tipo_contexto);
+            escribirTablas(buffer);
+        } else if (modo == MODO_COLOR) {
+            escribirTablas(buffer);
+            for (long desplazamiento : desplazamientos)
+                buffer.putLong(desplazamiento);
+        } else if (modo == MODO_RUNLENGTH_2D) {
+            escribirTablas(buffer);
+        }
+
+        buffer.put(predictores);
+
+        buffer.flip();
+        while (buffer.hasRemaining())
+            canal.write(buffer);
+    }
+
+    /**
+     * Método estático que indica si un buffer comienza con una cabecera en formato canónico.
+     * No modifica la posición del buffer.
+     * @param datos Buffer a analizar.
+     * @return Booleano que indica si el buffer está en formato canónico.
+     */
+    public static boolean esCanonico(ByteBuffer datos)
+    {
+        return datos.remaining() >= 4 && datos.getInt(datos.position()) == MAGICO;
+    }
+
+    /**
+     * Método estático que lee una cabecera desde un buffer, dejando la posición del buffer al comienzo
+     * de los datos comprimidos.
+     * @param datos Buffer fuente.
+     * @return Cabecera leída.
+     * @throws IOException En caso de que el buffer no contenga una cabecera válida.
+     */
+    public static CabeceraHuff leer(ByteBuffer datos) throws IOException
+    {
+        if (!esCanonico(datos))
+            throw new IOException("El archivo no está en formato HUFF canónico");
+        if (datos.remaining() < TAMANIO_FIJO)
+            throw new IOException("Cabecera HUFF corrupta");
+
+        datos.getInt();
+        byte modo = datos.get();
+        boolean con_prediccion = (modo & PREDICCION) != 0;
+        modo &= ~PREDICCION;
+        int ancho = datos.getInt();
+        int alto = datos.getInt();
+        int cantidad_simbolos = datos.getChar();
+
+        // La imagen debe poder alojarse en un único arreglo de píxeles
+        if (ancho <= 0 || alto <= 0 || (long) ancho * alto > Integer.MAX_VALUE || cantidad_simbolos > datos.remaining())
+            throw new IOException("Cabecera HUFF corrupta");
+
+        byte[] longitudes = new byte[cantidad_simbolos];
+        datos.get(longitudes);
+
+        // Los modos que no usan un código fijo guardan una lista de longitudes vacía, y los de código fijo
+        // codifican niveles de gris o diferencias de predicción, que también son 256
+        boolean codigo_fijo = modo == MODO_CANONICO || modo == MODO_BLOQUES || modo == MODO_RUNLENGTH;
+        if ((codigo_fijo && (longitudes.length == 0 || longitudes.length > CANTIDAD_NIVELES)) ||
+                (!codigo_fijo && longitudes.length > 0) || (longitudes.length > 0 && !HuffmanCanonico.esCompleto(longitudes)))
+            throw new IOException("Cabecera HUFF corrupta");
+
+        CabeceraHuff cabecera;
+        if (modo == MODO_RANS)
+            cabecera = new CabeceraHuff(modo, ancho, alto, leerFrecuencias(datos));
+        else if (modo == MODO_CONTEXTOS)
+            cabecera = leerContextos(datos, modo, ancho, alto);
+        else if (modo == MODO_COLOR)
+            cabecera = leerColor(datos, modo, ancho, alto);
+        else if (modo == MODO_RUNLENGTH_2D)
+            cabecera = leerRunLength2D(datos, modo, ancho, alto);
+        else if (modo == MODO_BLOQUES)
+            cabecera = leerBloques(datos, modo, ancho, alto, longitudes);
+        else
+            cabecera = new CabeceraHuff(modo, ancho, alto, longitudes);
+
+        if (!con_prediccion)
+            return cabecera;
+
+        if (alto > datos.remaining())
+            throw new IOException("Predictores corruptos");
+
+        byte[] predictores = new byte[alto];
+        datos.get(predictores);
+        for (byte predictor : predictores)
+            if (predictor < 0 || predictor >= Prediccion.CANTIDAD_PREDICTORES)
+                throw new IOException("Predictor desconocido: " + predictor);
+
+        return cabecera.conPredictores(predictores);
+    }
+
+    /**
+     * Método privado que lee el tipo de contexto y los códigos de cada contexto del modo por contextos.
+     * @param datos Buffer fuente, posicionado al comienzo del tipo de contexto.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @return Cabecera con los códigos de cada contexto.
+     * @throws IOException En caso de que los códigos no sean válidos.
+     */
+    private static CabeceraHuff leerContextos(ByteBuffer datos, byte modo, int ancho, int alto) throws IOException
+    {
+        if (!datos.hasRemaining())
+            throw new IOException("Tipo de contexto faltante");
+
+        byte tipo_contexto = datos.get();
+        byte[][] tablas = leerTablas(datos);
+
+        if (tablas.length != CodificadorContextos.getCantidadContextos(tipo_contexto))
+            throw new IOException("Tipo de contexto desconocido: " + tipo_contexto);
+
+        // Los símbolos decodificados eligen el contexto del siguiente, por lo que no pueden superar los 256
+        for (byte[] tabla : tablas)
+            if (tabla.length != 0 && tabla.length != CANTIDAD_NIVELES)
+                throw new IOException("Códigos de contexto corruptos");
+
+        return new CabeceraHuff(modo, ancho, alto, tipo_contexto, tablas);
+    }
+
+    /**
+     * Método privado que lee los códigos y la posición de cada plano del modo color.
+     * @param datos Buffer fuente, posicionado al comienzo de la lista de códigos.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @return Cabecera con los códigos y la posición de cada plano.
+     * @throws IOException En caso de que los códigos o las posiciones no sean válidos.
+     */
+    private static CabeceraHuff leerColor(ByteBuffer datos, byte modo, int ancho, int alto) throws IOException
+    {
+        byte[][] tablas = leerTablas(datos);
+
+        if (tablas.length != CodificadorColor.PLANOS || datos.remaining() < 8 * tablas.length)
+            throw new IOException("Planos de color corruptos");
+
+        for (int plano = 0; plano < tablas.length; plano++)
+            if (tablas[plano].length != CodificadorColor.CANTIDAD_SIMBOLOS[plano])
+                throw new IOException("Planos de color corruptos");
+
+        long[] desplazamientos = new long[tablas.length];
+        for (int plano = 0; plano < tablas.length; plano++)
+            desplazamientos[plano] = datos.getLong();
+
+        // Los planos se escriben uno detrás del otro, a partir del final de la cabecera
+        for (int plano = 0; plano < tablas.length; plano++)
+            if (desplazamientos[plano] < (plano == 0 ? 0 : desplazamientos[plano - 1]) || desplazamientos[plano] >>> 3 > datos.remaining())
+                throw new IOException("Planos de color corruptos");
+
+        return new CabeceraHuff(modo, ancho, alto, tablas, desplazamientos);
+    }
+
+    /**
+     * Método privado que lee los códigos de modos y de niveles de gris del modo Run-Length bidimensional.
+     * @param datos Buffer fuente, posicionado al comienzo de la lista de códigos.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @return Cabecera con los dos códigos.
+     * @throws IOException En caso de que los códigos no sean válidos.
+     */
+    private static CabeceraHuff leerRunLength2D(ByteBuffer datos, byte modo, int ancho, int alto) throws IOException
+    {
+        byte[][] tablas = leerTablas(datos);
+
+        if (tablas.length != CodificadorRunLength2D.CANTIDAD_TABLAS || tablas[0].length > CodificadorRunLength2D.CANTIDAD_MODOS ||
+                tablas[1].length > CANTIDAD_NIVELES)
+            throw new IOException("Códigos Run-Length corruptos");
+
+        return new CabeceraHuff(modo, ancho, alto, tablas);
+    }
+
+    /**
+     * Método privado que retorna la cantidad de bytes que ocupa la lista de códigos.
+     * @return Tamaño en bytes de la lista de códigos.
+     */
+    private int getTamanioTablas()
+    {
+        int tamanio = 1;
+
+        for (byte[] tabla : tablas)
+            tamanio += 2 + (tabla.length + 1) / 2;
+
+        return tamanio;
+    }
+
+    /**
+     * Método privado que escribe la lista de códigos, con las longitudes de a 4 bits.
+     * @param buffer Buffer destino.
+     */
+    private void escribirTablas(ByteBuffer buffer)
+    {
+        buffer.put((byte) tablas.length);
+
+        for (byte[] tabla : tablas) {
+            buffer.putChar((char) tabla.length);
+            for (int s = 0; s < tabla.length; s += 2)
+                buffer.put((byte) (tabla[s] << 4 | (s + 1 < tabla.length ? tabla[s + 1] : 0)));
+        }
+    }
+
+    /**
+     * Método privado que lee una lista de códigos, verificando que cada código utilizado sea completo.
+     * Las longitudes se guardan de a 4 bits, ya que los códigos de estos modos no superan
+     * CodificadorHuffmanNuevo.LONGITUD_ACOTADA bits.
+     * @param datos Buffer fuente, posicionado al comienzo de la lista.
+     * @return Arreglo con la longitud del código de cada símbolo, para cada código de la lista.
+     * @throws IOException En caso de que algún código no sea válido.
+     */
+    private static byte[][] leerTablas(ByteBuffer datos) throws IOException
+    {
+        if (!datos.hasRemaining())
+            throw new IOException("Lista de códigos faltante");
+
+        byte[][] tablas = new byte[datos.get() & 0xFF][];
+
+        for (int t = 0; t < tablas.length; t++) {
+            if (datos.remaining() < 2)
+                throw new IOException("Código " + t + " de la cabecera corrupto");
+
+            int cantidad = datos.getChar();
+            if ((cantidad + 1) / 2 > datos.remaining())
+                throw new IOException("Código " + t + " de la cabecera corrupto");
+
+            byte[] tabla = new byte[cantidad];
+            for (int s = 0; s < tabla.length; s += 2) {
+                int par = datos.get() & 0xFF;
+                tabla[s] = (byte) (par >>> 4);
+                if (s + 1 < tabla.length)
+                    tabla[s + 1] = (byte) (par & 0xF);
+            }
+
+            if (tabla.length > 0 && !HuffmanCanonico.esCompleto(tabla))
+                throw new IOException("Código " + t + " de la cabecera corrupto");
+
+            tablas[t] = tabla;
+        }
+
+        return tablas;
+    }
+
+    /**
+     * Método privado que lee el índice de bloques del modo por bloques.
+     * @param datos Buffer fuente, posicionado al comienzo del índice.
+     * @param modo Modo de compresión.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param longitudes Longitud del código canónico de cada símbolo.
+     * @return Cabecera con el índice de bloques.
+     * @throws IOException En caso de que el índice no sea válido.
+     */
+    private static CabeceraHuff leerBloques(ByteBuffer datos, byte modo, int ancho, int alto, byte[] longitudes) throws IOException
+    {
+        if (datos.remaining() < 8)
+            throw new IOException("Indice de bloques corrupto");
+
+        int filas_por_bloque = datos.getInt();
+        int cantidad_bloques = datos.getInt();
+
+        if (filas_por_bloque <= 0 || cantidad_bloques != (int) ((alto + (long) filas_por_bloque - 1) / filas_por_bloque) ||
+                cantidad_bloques > datos.remaining() / 8)
+            throw new IOException("Indice de bloques corrupto");
+
+        long[] desplazamientos = new long[cantidad_bloques];
+        for (int i = 0; i < cantidad_bloques; i++)
+            desplazamientos[i] = datos.getLong();
+
+        // Los desplazamientos se cuentan en bits desde el final de la cabecera, por lo que no pueden superar
+        // a los bytes que quedan en el buffer
+        for (int i = 0; i < cantidad_bloques; i++)
+            if (desplazamientos[i] < 0 || desplazamientos[i] >>> 3 > datos.remaining())
+                throw new IOException("Indice de bloques corrupto");
+
+        return new CabeceraHuff(modo, ancho, alto, longitudes, filas_por_bloque, desplazamientos);
+    }
+
+    /**
+     * Método privado que lee las frecuencias cuantizadas del modo rANS, verificando que sumen
+     * 2^CodificadorRANS.PRECISION.
+     * @param datos Buffer fuente, posicionado al comienzo de las frecuencias.
+     * @return Arreglo indexado por símbolo con su frecuencia.
+     * @throws IOException En caso de que las frecuencias no sean válidas.
+     */
+    private static int[] leerFrecuencias(ByteBuffer datos) throws IOException
+    {
+        if (datos.remaining() < 2)
+            throw new IOException("Frecuencias rANS corruptas");
+
+        int cantidad = datos.getChar();
+        if (cantidad > CANTIDAD_NIVELES || 2 * cantidad > datos.remaining())
+            throw new IOException("Frecuencias rANS corruptas");
+
+        int[] frecuencias = new int[cantidad];
+        int suma = 0;
+
+        for (int s = 0; s < frecuencias.length; s++) {
+            frecuencias[s] = datos.getChar();
+            suma += frecuencias[s];
+        }
+
+        if (suma != 1 << CodificadorRANS.PRECISION)
+            throw new IOException("Frecuencias rANS corruptas");
+
+        return frecuencias;
+    }
+}
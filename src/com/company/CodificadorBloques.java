@@ -0,0 +1,199 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Clase que define la compresión y descompresión de imágenes en escala de grises divididas en bloques de
+ * filas. Todos los bloques comparten el mismo código canónico, pero cada uno comienza alineado a byte y
+ * su posición queda registrada en la cabecera, por lo que pueden codificarse y decodificarse en paralelo.
+ * La división en bloques depende sólo de la cantidad de filas por bloque, nunca de la cantidad de hilos,
+ * de manera que el archivo generado es siempre el mismo.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CodificadorBloques {
+
+    /**
+     * Cantidad de filas por bloque utilizada por defecto.
+     */
+    public static final int FILAS_POR_BLOQUE = 64;
+
+    private static final int TAMANIO_BUFFER_BLOQUE = 1 << 16;
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en el modo por
+     * bloques, utilizando el pool común de hilos.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param longitudes Longitud del código canónico de cada nivel de gris.
+     * @param filas_por_bloque Cantidad de filas de cada bloque.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, byte[] longitudes, int filas_por_bloque, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        comprimir(pixeles, longitudes, filas_por_bloque, nombre_archivo, ancho_img, alto_img, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en el modo por
+     * bloques. Cada bloque se codifica en memoria en una tarea independiente y luego se vuelcan todos,
+     * en orden, detrás de la cabecera.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param longitudes Longitud del código canónico de cada nivel de gris.
+     * @param filas_por_bloque Cantidad de filas de cada bloque.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, byte[] longitudes, int filas_por_bloque, String nombre_archivo,
+                                 int ancho_img, int alto_img, ForkJoinPool pool) throws IOException
+    {
+        if (filas_por_bloque <= 0)
+            throw new IllegalArgumentException("La cantidad de filas por bloque debe ser positiva");
+
+        int[] codigos = HuffmanCanonico.asignarCodigos(longitudes);
+        int cantidad_bloques = (int) ((alto_img + (long) filas_por_bloque - 1) / filas_por_bloque);
+        byte[][] bloques = new byte[cantidad_bloques][];
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+        for (int b = 0; b < cantidad_bloques; b++) {
+            final int bloque = b;
+            tareas.add(pool.submit(() -> {
+                int desde = (int) Math.min(alto_img, (long) bloque * filas_por_bloque) * ancho_img;
+                int hasta = (int) Math.min(alto_img, (long) (bloque + 1) * filas_por_bloque) * ancho_img;
+
+                ByteArrayOutputStream salida = new ByteArrayOutputStream();
+                try {
+                    EscritorBits escritor = new EscritorBits(Channels.newChannel(salida), TAMANIO_BUFFER_BLOQUE);
+                    CodificadorHuffmanNuevo.codificar(pixeles, desde, hasta, codigos, longitudes, escritor);
+                    escritor.vaciar();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                bloques[bloque] = salida.toByteArray();
+            }));
+        }
+        esperar(tareas);
+
+        long[] desplazamientos = new long[cantidad_bloques];
+        long posicion = 0;
+        for (int b = 0; b < cantidad_bloques; b++) {
+            desplazamientos[b] = posicion;
+            posicion += 8L * bloques[b].length;
+        }
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CabeceraHuff(CabeceraHuff.MODO_BLOQUES, ancho_img, alto_img, longitudes, filas_por_bloque, desplazamientos).escribir(canal);
+
+            for (byte[] bloque : bloques) {
+                ByteBuffer buffer = ByteBuffer.wrap(bloque);
+                while (buffer.hasRemaining())
+                    canal.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo por bloques, utilizando el pool
+     * común de hilos.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @param decodificador Tabla de decodificación del código canónico de la cabecera.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera, DecodificadorSimbolos decodificador) throws IOException
+    {
+        return descomprimir(datos, cabecera, decodificador, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo por bloques. Cada bloque se lee desde
+     * su posición en el índice, en una tarea independiente, y escribe directamente sobre las filas que le
+     * corresponden del raster de la imagen resultante. La tabla de decodificación se comparte entre todas
+     * las tareas, ya que sólo se lee.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @param decodificador Tabla de decodificación del código canónico de la cabecera.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera, DecodificadorSimbolos decodificador,
+                                             ForkJoinPool pool) throws IOException
+    {
+        int ancho = cabecera.getAncho();
+        int alto = cabecera.getAlto();
+        int filas_por_bloque = cabecera.getFilasPorBloque();
+        long[] desplazamientos = cabecera.getDesplazamientos();
+
+        BufferedImage img = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        int inicio_datos = datos.position();
+
+        // La cabecera sólo acota los desplazamientos al resto del archivo; los predictores que la siguen los acortan
+        for (long desplazamiento : desplazamientos)
+            if (desplazamiento >>> 3 > datos.remaining())
+                throw new IOException("Indice de bloques corrupto");
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+        for (int b = 0; b < desplazamientos.length; b++) {
+            final int bloque = b;
+            tareas.add(pool.submit(() -> {
+                int desde = (int) Math.min(alto, (long) bloque * filas_por_bloque) * ancho;
+                int hasta = (int) Math.min(alto, (long) (bloque + 1) * filas_por_bloque) * ancho;
+
+                ByteBuffer vista = datos.duplicate();
+                vista.position(inicio_datos + (int) (desplazamientos[bloque] >>> 3));
+
+                LectorBits lector = new LectorBits(vista);
+                decodificador.decodificar(lector, pixeles, desde, hasta - desde);
+                try {
+                    lector.verificarFin();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                for (int i = desde; i < hasta; i++)
+                    pixeles[i] = 0xFF000000 | (pixeles[i] * 0x010101);
+            }));
+        }
+        esperar(tareas);
+
+        return img;
+    }
+
+    /**
+     * Método estático que espera a que terminen todas las tareas, propagando los errores de entrada/salida
+     * que las tareas hayan envuelto en UncheckedIOException.
+     * @param tareas Tareas a esperar.
+     * @throws IOException En caso de que alguna tarea haya fallado por entrada/salida.
+     */
+    static void esperar(List<ForkJoinTask<?>> tareas) throws IOException
+    {
+        try {
+            for (ForkJoinTask<?> tarea : tareas)
+                tarea.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Clase que define la compresión sin pérdida de imágenes a color. Los píxeles RGB se transforman a
+ * YCoCg-R, una transformación reversible con enteros que separa la luminancia (Y) de dos crominancias
+ * (Co y Cg), mucho menos correlacionadas entre sí que los canales R, G y B:
+ *   Co = R - B,  t = B + (Co >> 1),  Cg = G - t,  Y = t + (Cg >> 1)
+ * Y ocupa 8 bits, y Co y Cg, que van de -255 a 255, se guardan desplazadas en 255 con un alfabeto de
+ * 511 símbolos.
+ *
+ * Cada plano tiene su propio código canónico, comienza alineado a byte y su posición queda registrada en
+ * la cabecera, por lo que los tres planos se codifican y decodifican en paralelo.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CodificadorColor {
+
+    /**
+     * Cantidad de planos de la imagen transformada (Y, Co y Cg).
+     */
+    public static final int PLANOS = 3;
+
+    private static final int DESPLAZAMIENTO_CROMA = 255;
+
+    // Tamaño del alfabeto de cada plano, que la cabecera verifica al leer los códigos
+    static final int[] CANTIDAD_SIMBOLOS = {256, 511, 511};
+
+    private static final int TAMANIO_BUFFER_PLANO = 1 << 16;
+
+    /**
+     * Método estático que transforma píxeles RGB a los planos Y, Co y Cg.
+     * @param rgb Píxeles en formato 0xRRGGBB (el canal alfa se ignora).
+     * @param planos Arreglo con los tres planos destino, del mismo tamaño que rgb.
+     */
+    public static void transformar(int[] rgb, int[][] planos)
+    {
+        int[] y = planos[0], co = planos[1], cg = planos[2];
+
+        for (int i = 0; i < rgb.length; i++) {
+            int r = (rgb[i] >>> 16) & 0xFF;
+            int g = (rgb[i] >>> 8) & 0xFF;
+            int b = rgb[i] & 0xFF;
+
+            int naranja = r - b;
+            int t = b + (naranja >> 1);
+            int verde = g - t;
+
+            y[i] = t + (verde >> 1);
+            co[i] = naranja + DESPLAZAMIENTO_CROMA;
+            cg[i] = verde + DESPLAZAMIENTO_CROMA;
+        }
+    }
+
+    /**
+     * Método estático que reconstruye los píxeles RGB a partir de los planos Y, Co y Cg.
+     * @param planos Arreglo con los tres planos.
+     * @param rgb Arreglo destino, donde se depositan los píxeles en formato 0xFFRRGGBB.
+     */
+    public static void destransformar(int[][] planos, int[] rgb)
+    {
+        int[] y = planos[0], co = planos[1], cg = planos[2];
+
+        for (int i = 0; i < rgb.length; i++) {
+            int naranja = co[i] - DESPLAZAMIENTO_CROMA;
+            int verde = cg[i] - DESPLAZAMIENTO_CROMA;
+
+            int t = y[i] - (verde >> 1);
+            int g = verde + t;
+            int b = t - (naranja >> 1);
+            int r = b + naranja;
+
+            rgb[i] = 0xFF000000 | ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+        }
+    }
+
+    /**
+     * Método estático que comprime una imagen a color a un archivo binario, utilizando el pool común de hilos.
+     * @param img Imagen a comprimir.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(BufferedImage img, String nombre_archivo) throws IOException
+    {
+        int ancho = img.getWidth();
+        int alto = img.getHeight();
+
+        comprimir(ConversorPixeles.getRGB(img, null), nombre_archivo, ancho, alto, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que comprime una imagen a color a un archivo binario. Cada plano se codifica en
+     * memoria en una tarea independiente y luego se vuelcan los tres, en orden, detrás de la cabecera.
+     * @param rgb Píxeles de la imagen en formato 0xRRGGBB, de izquierda a derecha y de arriba a abajo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] rgb, String nombre_archivo, int ancho_img, int alto_img, ForkJoinPool pool) throws IOException
+    {
+        int[][] planos = new int[PLANOS][rgb.length];
+        transformar(rgb, planos);
+
+        byte[][] longitudes = new byte[PLANOS][];
+        byte[][] datos = new byte[PLANOS][];
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+        for (int p = 0; p < PLANOS; p++) {
+            final int plano = p;
+            tareas.add(pool.submit(() -> {
+                int[] simbolos = planos[plano];
+                longitudes[plano] = ConstructorHuffman.getLongitudesLimitadas(Utils.getConteos(simbolos, CANTIDAD_SIMBOLOS[plano]),
+                        CodificadorHuffmanNuevo.LONGITUD_ACOTADA);
+
+                ByteArrayOutputStream salida = new ByteArrayOutputStream();
+                try {
+                    EscritorBits escritor = new EscritorBits(Channels.newChannel(salida), TAMANIO_BUFFER_PLANO);
+                    CodificadorHuffmanNuevo.codificar(simbolos, 0, simbolos.length, HuffmanCanonico.asignarCodigos(longitudes[plano]),
+                            longitudes[plano], escritor);
+                    escritor.vaciar();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                datos[plano] = salida.toByteArray();
+            }));
+        }
+        CodificadorBloques.esperar(tareas);
+
+        long[] desplazamientos = new long[PLANOS];
+        for (int p = 1; p < PLANOS; p++)
+            desplazamientos[p] = desplazamientos[p - 1] + 8L * datos[p - 1].length;
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CabeceraHuff(CabeceraHuff.MODO_COLOR, ancho_img, alto_img, longitudes, desplazamientos).escribir(canal);
+
+            for (byte[] plano : datos) {
+                ByteBuffer buffer = ByteBuffer.wrap(plano);
+                while (buffer.hasRemaining())
+                    canal.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo color, utilizando el pool común de hilos.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera) throws IOException
+    {
+        return descomprimir(datos, cabecera, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo color. Cada plano se lee desde su
+     * posición en la cabecera, en una tarea independiente, y al finalizar se reconstruyen los píxeles RGB.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera, ForkJoinPool pool) throws IOException
+    {
+        BufferedImage img = new BufferedImage(cabecera.getAncho(), cabecera.getAlto(), BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        byte[][] longitudes = cabecera.getTablas();
+        long[] desplazamientos = cabecera.getDesplazamientos();
+        int[][] planos = new int[PLANOS][pixeles.length];
+        int inicio_datos = datos.position();
+
+        // La cabecera sólo acota las posiciones al resto del archivo; los predictores que la siguen los acortan
+        for (long desplazamiento : desplazamientos)
+            if (desplazamiento >>> 3 > datos.remaining())
+                throw new IOException("Planos de color corruptos");
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+        for (int p = 0; p < PLANOS; p++) {
+            final int plano = p;
+            tareas.add(pool.submit(() -> {
+                ByteBuffer vista = datos.duplicate();
+                vista.position(inicio_datos + (int) (desplazamientos[plano] >>> 3));
+
+                LectorBits lector = new LectorBits(vista);
+                new TablaDecodificacion(HuffmanCanonico.asignarCodigos(longitudes[plano]), longitudes[plano])
+                        .decodificar(lector, planos[plano], 0, pixeles.length);
+                try {
+                    lector.verificarFin();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        CodificadorBloques.esperar(tareas);
+
+        destransformar(planos, pixeles);
+        return img;
+    }
+}
@@ -0,0 +1,283 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Clase que define la compresión de imágenes en escala de grises con varios códigos de Huffman, elegidos
+ * según un contexto calculado a partir de los símbolos vecinos ya codificados (a: izquierda, b: arriba).
+ * Como los píxeles vecinos están fuertemente correlacionados, la distribución de cada símbolo condicionada
+ * a su contexto es mucho más concentrada que la distribución global.
+ *
+ * Hay dos tipos de contexto:
+ * - CONTEXTO_NIVEL: el nivel de gris del vecino de la izquierda, cuantizado en 16 franjas. Es el
+ *   adecuado para codificar niveles de gris directamente.
+ * - CONTEXTO_ACTIVIDAD: la suma de las magnitudes de las diferencias de la izquierda y de arriba,
+ *   cuantizada en 12 franjas. Es el adecuado para codificar las diferencias de Prediccion.
+ *
+ * Los códigos se acotan a CodificadorHuffmanNuevo.LONGITUD_ACOTADA bits, de manera que cada símbolo se
+ * decodifica con una única consulta a la tabla de su contexto, y se guardan en forma canónica en la
+ * cabecera.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CodificadorContextos {
+
+    /**
+     * Contexto dado por el nivel de gris del vecino de la izquierda.
+     */
+    public static final byte CONTEXTO_NIVEL = 0;
+
+    /**
+     * Contexto dado por la magnitud de las diferencias vecinas.
+     */
+    public static final byte CONTEXTO_ACTIVIDAD = 1;
+
+    private static final int CANTIDAD_SIMBOLOS = 256;
+    private static final int DESPLAZAMIENTO_NIVEL = 4;
+
+    // Límite inferior de cada franja de actividad, a partir de la segunda
+    private static final int[] UMBRALES_ACTIVIDAD = {1, 2, 3, 5, 7, 10, 15, 23, 35, 53, 80};
+    private static final int[] FRANJA_ACTIVIDAD = new int[CANTIDAD_SIMBOLOS + 1];
+
+    static {
+        int franja = 0;
+        for (int actividad = 0; actividad < FRANJA_ACTIVIDAD.length; actividad++) {
+            if (franja < UMBRALES_ACTIVIDAD.length && actividad >= UMBRALES_ACTIVIDAD[franja])
+                franja++;
+            FRANJA_ACTIVIDAD[actividad] = franja;
+        }
+    }
+
+    /**
+     * Método estático que retorna la cantidad de contextos de un tipo de contexto.
+     * @param tipo_contexto Tipo de contexto.
+     * @return Cantidad de contextos, o 0 si el tipo es desconocido.
+     */
+    public static int getCantidadContextos(byte tipo_contexto)
+    {
+        switch (tipo_contexto) {
+            case CONTEXTO_NIVEL:
+                return CANTIDAD_SIMBOLOS >>> DESPLAZAMIENTO_NIVEL;
+            case CONTEXTO_ACTIVIDAD:
+                return UMBRALES_ACTIVIDAD.length + 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Método estático que calcula el contexto de un símbolo a partir de sus vecinos, que valen 0 fuera
+     * de la imagen.
+     * @param tipo_contexto Tipo de contexto.
+     * @param a Símbolo de la izquierda.
+     * @param b Símbolo de arriba.
+     * @return Contexto del símbolo.
+     */
+    public static int getContexto(byte tipo_contexto, int a, int b)
+    {
+        if (tipo_contexto == CONTEXTO_NIVEL)
+            return a >>> DESPLAZAMIENTO_NIVEL;
+
+        // Las diferencias son módulo 256: 255 equivale a -1
+        int magnitud_a = a <= 128 ? a : CANTIDAD_SIMBOLOS - a;
+        int magnitud_b = b <= 128 ? b : CANTIDAD_SIMBOLOS - b;
+        return FRANJA_ACTIVIDAD[magnitud_a + magnitud_b];
+    }
+
+    /**
+     * Método estático que calcula el código canónico de cada contexto a partir de los símbolos de la imagen.
+     * @param simbolos Símbolos de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param tipo_contexto Tipo de contexto.
+     * @return Arreglo indexado por contexto con la longitud del código de cada símbolo; los contextos que
+     * no aparecen tienen un arreglo vacío.
+     */
+    public static byte[][] getLongitudes(int[] simbolos, int ancho, int alto, byte tipo_contexto)
+    {
+        int cantidad_contextos = getCantidadContextos(tipo_contexto);
+        int[][] conteos = new int[cantidad_contextos][CANTIDAD_SIMBOLOS];
+        boolean[] presentes = new boolean[cantidad_contextos];
+
+        for (int fila = 0; fila < alto; fila++) {
+            int inicio = fila * ancho;
+
+            for (int x = 0; x < ancho; x++) {
+                int i = inicio + x;
+                int a = x > 0 ? simbolos[i - 1] : 0;
+                int b = fila > 0 ? simbolos[i - ancho] : 0;
+                int contexto = getContexto(tipo_contexto, a, b);
+
+                conteos[contexto][simbolos[i]]++;
+                presentes[contexto] = true;
+            }
+        }
+
+        ConstructorHuffman constructor = new ConstructorHuffman(CANTIDAD_SIMBOLOS);
+        byte[][] longitudes = new byte[cantidad_contextos][];
+
+        for (int contexto = 0; contexto < cantidad_contextos; contexto++) {
+            if (!presentes[contexto]) {
+                longitudes[contexto] = new byte[0];
+                continue;
+            }
+
+            longitudes[contexto] = new byte[CANTIDAD_SIMBOLOS];
+            constructor.construirLimitado(conteos[contexto], CodificadorHuffmanNuevo.LONGITUD_ACOTADA, longitudes[contexto]);
+        }
+
+        return longitudes;
+    }
+
+    /**
+     * Método estático que codifica los símbolos de una imagen, cada uno con el código de su contexto.
+     * @param simbolos Símbolos de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param tipo_contexto Tipo de contexto.
+     * @param longitudes Código canónico de cada contexto, obtenido con getLongitudes().
+     * @param escritor Escritor sobre el cuál se vuelcan los bits.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void codificar(int[] simbolos, int ancho, int alto, byte tipo_contexto, byte[][] longitudes,
+                                 EscritorBits escritor) throws IOException
+    {
+        int[][] codigos = new int[longitudes.length][];
+        for (int contexto = 0; contexto < longitudes.length; contexto++)
+            codigos[contexto] = HuffmanCanonico.asignarCodigos(longitudes[contexto]);
+
+        for (int fila = 0; fila < alto; fila++) {
+            int inicio = fila * ancho;
+
+            for (int x = 0; x < ancho; x++) {
+                int i = inicio + x;
+                int a = x > 0 ? simbolos[i - 1] : 0;
+                int b = fila > 0 ? simbolos[i - ancho] : 0;
+                int contexto = getContexto(tipo_contexto, a, b);
+
+                escritor.escribirBits(codigos[contexto][simbolos[i]], longitudes[contexto][simbolos[i]]);
+            }
+        }
+    }
+
+    /**
+     * Método estático que decodifica los símbolos de una imagen, eligiendo para cada uno la tabla de su
+     * contexto.
+     * @param lector Fuente de bits.
+     * @param tipo_contexto Tipo de contexto.
+     * @param longitudes Código canónico de cada contexto.
+     * @param destino Arreglo donde se depositan los símbolos.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @throws IOException En caso de que algún símbolo caiga en un contexto sin código.
+     */
+    public static void decodificar(LectorBits lector, byte tipo_contexto, byte[][] longitudes, int[] destino, int ancho, int alto)
+            throws IOException
+    {
+        // Los contextos que no aparecen al codificar no tienen tabla
+        TablaDecodificacion[] tablas = new TablaDecodificacion[longitudes.length];
+        for (int contexto = 0; contexto < longitudes.length; contexto++)
+            if (longitudes[contexto].length > 0)
+                tablas[contexto] = new TablaDecodificacion(HuffmanCanonico.asignarCodigos(longitudes[contexto]), longitudes[contexto]);
+
+        for (int fila = 0; fila < alto; fila++) {
+            int inicio = fila * ancho;
+
+            for (int x = 0; x < ancho; x++) {
+                int i = inicio + x;
+                int a = x > 0 ? destino[i - 1] : 0;
+                int b = fila > 0 ? destino[i - ancho] : 0;
+
+                TablaDecodificacion tabla = tablas[getContexto(tipo_contexto, a, b)];
+                if (tabla == null)
+                    throw new IOException("Datos por contextos corruptos: el píxel " + i + " cae en un contexto sin código");
+
+                destino[i] = tabla.decodificarSimbolo(lector);
+            }
+        }
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en modo por
+     * contextos, codificando directamente los niveles de gris.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        comprimir(pixeles, CONTEXTO_NIVEL, new byte[0], nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en modo por
+     * contextos, codificando las diferencias de predicción con el contexto de actividad.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirPredictivo(int[] pixeles, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        int[] residuos = new int[pixeles.length];
+        byte[] predictores = Prediccion.filtrar(pixeles, ancho_img, alto_img, residuos);
+
+        comprimir(residuos, CONTEXTO_ACTIVIDAD, predictores, nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que comprime una tira de símbolos a un archivo binario en modo por contextos.
+     * @param simbolos Niveles de gris, o diferencias de predicción, de izquierda a derecha y de arriba a abajo.
+     * @param tipo_contexto Tipo de contexto.
+     * @param predictores Predictor utilizado en cada fila, o un arreglo vacío si no hubo predicción.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] simbolos, byte tipo_contexto, byte[] predictores, String nombre_archivo,
+                                 int ancho_img, int alto_img) throws IOException
+    {
+        byte[][] longitudes = getLongitudes(simbolos, ancho_img, alto_img, tipo_contexto);
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CabeceraHuff(CabeceraHuff.MODO_CONTEXTOS, ancho_img, alto_img, tipo_contexto, longitudes)
+                    .conPredictores(predictores).escribir(canal);
+
+            EscritorBits escritor = new EscritorBits(canal);
+            codificar(simbolos, ancho_img, alto_img, tipo_contexto, longitudes, escritor);
+            escritor.vaciar();
+        }
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo por contextos.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que los datos estén truncados.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera) throws IOException
+    {
+        BufferedImage img = new BufferedImage(cabecera.getAncho(), cabecera.getAlto(), BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        LectorBits lector = new LectorBits(datos);
+        decodificar(lector, cabecera.getTipoContexto(), cabecera.getTablas(), pixeles, cabecera.getAncho(), cabecera.getAlto());
+        lector.verificarFin();
+
+        for (int i = 0; i < pixeles.length; i++)
+            pixeles[i] = 0xFF000000 | (pixeles[i] * 0x010101);
+
+        return img;
+    }
+}
@@ -1,7 +1,12 @@
 package com.company;
 
 
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -14,6 +19,12 @@ public class CodificadorHuffmanNuevo {
     private static final int CANTIDAD_DIGITOS = 16;
     private static final int UNO = 1;
 
+    /**
+     * Longitud máxima de código sugerida para el modo de longitud acotada. Con este límite la tabla de
+     * decodificación resuelve cada símbolo con una única consulta.
+     */
+    public static final int LONGITUD_ACOTADA = TablaDecodificacion.MAXIMO_BITS_TABLA;
+
     private PriorityQueue<ArbolHuffman> arbol = new PriorityQueue<>(new Comparator<ArbolHuffman>() {
         @Override
         public int compare(ArbolHuffman o1, ArbolHuffman o2) {
@@ -83,7 +94,7 @@ public class CodificadorHuffmanNuevo {
         if (arbol.esHoja()) {
             NodoHoja hoja = (NodoHoja) arbol;
 
-            codificaciones.put(hoja.getSimbolo(), str.toString());
+            codificaciones.put(String.valueOf(hoja.getSimbolo()), str.toString());
         } else {
 
             NodoInterno interno = (NodoInterno) arbol;
@@ -98,6 +109,51 @@ public class CodificadorHuffmanNuevo {
         }
     }
 
+    /**
+     * Método estático recursivo que obtiene la codificación de cada símbolo en forma de arreglos indexados
+     * por el símbolo, evitando tener que armar cadenas de texto y buscarlas en un mapa por cada píxel.
+     * Los símbolos que no aparecen en el árbol quedan con longitud cero.
+     * @param arbol Arbol sobre el que se efectuará la lectura.
+     * @param codigo Bits del camino recorrido hasta el nodo actual. Siempre debe ser 0 en la llamada inicial.
+     * @param longitud Cantidad de bits del camino. Siempre debe ser 0 en la llamada inicial.
+     * @param codigos Arreglo donde se deposita el código de cada símbolo (alineado a la derecha).
+     * @param longitudes Arreglo donde se deposita la longitud del código de cada símbolo.
+     */
+    public static void getCodificacion(ArbolHuffman arbol, int codigo, int longitud, int[] codigos, byte[] longitudes)
+    {
+        if (arbol.esHoja()) {
+            int simbolo = ((NodoHoja) arbol).getSimbolo();
+
+            codigos[simbolo] = codigo;
+            longitudes[simbolo] = (byte) longitud;
+        } else {
+            if (longitud == EscritorBits.MAXIMO_BITS_ESCRITURA)
+                throw new IllegalArgumentException("El árbol genera códigos de más de " + longitud + " bits");
+
+            NodoInterno interno = (NodoInterno) arbol;
+
+            getCodificacion(interno.getNodo_izq(), codigo << 1, longitud + 1, codigos, longitudes);
+            getCodificacion(interno.getNodo_der(), (codigo << 1) | UNO, longitud + 1, codigos, longitudes);
+        }
+    }
+
+    /**
+     * Método estático que expresa un código como cadena de texto de 0s y 1s, para mostrarlo o volcarlo
+     * a un archivo de texto.
+     * @param codigo Código alineado a la derecha.
+     * @param longitud Cantidad de bits del código.
+     * @return Cadena de texto con los bits del código, el más significativo primero.
+     */
+    public static String getCodigoComoCadena(int codigo, int longitud)
+    {
+        char[] bits = new char[longitud];
+
+        for (int k = 0; k < longitud; k++)
+            bits[k] = ((codigo >>> (longitud - 1 - k)) & UNO) == UNO ? '1' : '0';
+
+        return new String(bits);
+    }
+
     /**
      * Método estático en el que dado un árbol, se obtiene el símbolo correspondiente a una cadena
      * de texto con 0s y 1s.
@@ -110,7 +166,7 @@ public class CodificadorHuffmanNuevo {
         if (arbol.esHoja()){
             if (codigo.length() == 0) {
                 NodoHoja hoja = (NodoHoja) arbol;
-                return hoja.getSimbolo();
+                return String.valueOf(hoja.getSimbolo());
             } else {
                 return null;
             }
@@ -136,7 +192,10 @@ public class CodificadorHuffmanNuevo {
      * @param ancho Número entero que indica el ancho de la imagen a descomprimir
      * @param alto Número entero que indica el alto de la imagen a comprimir
      * @return Lista de cadenas de texto que representa la decodificación.
+     * @deprecated Decodifica en tiempo cuadrático respecto de la longitud de los códigos; usar
+     * {@link #descomprimir(File, ArbolHuffman)} o {@link TablaDecodificacion}.
      */
+    @Deprecated
     public static List<String> getCadena(ArbolHuffman arbol, StringBuilder codificacion, int ancho, int alto)
     {
         List<String> aux = new ArrayList<>();
@@ -160,6 +219,301 @@ public class CodificadorHuffmanNuevo {
         return aux;
     }
 
+    /**
+     * Método estático que levanta un archivo binario generado por comprimir() y reconstruye la imagen
+     * en escala de grises. Los bits se leen directamente del contenido del archivo y se traducen mediante una
+     * tabla de decodificación, escribiendo cada nivel de gris sobre el raster de la imagen resultante.
+     * El archivo se mapea en memoria, por lo que no se copia su contenido antes de decodificarlo.
+     * @param archivo Archivo binario a descomprimir.
+     * @param arbol Arbol de Huffman con el que se generó el archivo.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static BufferedImage descomprimir(File archivo, ArbolHuffman arbol) throws IOException
+    {
+        ByteBuffer datos = LectorBits.mapearArchivo(archivo);
+
+        int ancho = datos.getChar();
+        int alto = datos.getChar();
+
+        BufferedImage img = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        LectorBits lector = new LectorBits(datos);
+        new TablaDecodificacion(arbol).decodificar(lector, pixeles, 0, pixeles.length);
+        lector.verificarFin();
+
+        // Cada nivel de gris se replica en los tres canales
+        for (int i = 0; i < pixeles.length; i++)
+            pixeles[i] = 0xFF000000 | (pixeles[i] * 0x010101);
+
+        return img;
+    }
+
+    /**
+     * Método estático que codifica una tira de símbolos, escribiendo el código de cada uno sobre el
+     * escritor de bits.
+     * @param simbolos Arreglo con los símbolos a codificar.
+     * @param desde Posición del primer símbolo a codificar.
+     * @param hasta Posición siguiente al último símbolo a codificar.
+     * @param codigos Código de cada símbolo, tal como lo deja getCodificacion().
+     * @param longitudes Longitud del código de cada símbolo.
+     * @param escritor Escritor sobre el cuál se vuelcan los bits.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void codificar(int[] simbolos, int desde, int hasta, int[] codigos, byte[] longitudes, EscritorBits escritor) throws IOException
+    {
+        for (int i = desde; i < hasta; i++) {
+            int simbolo = simbolos[i];
+            escritor.escribirBits(codigos[simbolo], longitudes[simbolo]);
+        }
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario, con el nombre deseado.
+     * Genera el mismo formato que generarComprimido(): las dimensiones de la imagen en 16 bits cada una,
+     * seguidas de la codificación de cada píxel.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param codigos Código de cada nivel de gris, tal como lo deja getCodificacion().
+     * @param longitudes Longitud del código de cada nivel de gris.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, int[] codigos, byte[] longitudes, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            EscritorBits escritor = new EscritorBits(canal);
+
+            escritor.escribirBits(ancho_img, CANTIDAD_DIGITOS);
+            escritor.escribirBits(alto_img, CANTIDAD_DIGITOS);
+            codificar(pixeles, 0, pixeles.length, codigos, longitudes, escritor);
+
+            escritor.vaciar();
+        }
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario autocontenido, en
+     * formato canónico. La cabecera guarda sólo la longitud del código de cada nivel de gris, por lo que
+     * para descomprimir no hace falta el archivo con la distribución de probabilidades.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param longitudes Longitud del código de cada nivel de gris, por ejemplo la obtenida con
+     *                   HuffmanCanonico.getLongitudes().
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirCanonico(int[] pixeles, byte[] longitudes, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        comprimirCanonico(pixeles, longitudes, new byte[0], nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que comprime en formato canónico las diferencias generadas por Prediccion.filtrar(),
+     * guardando en la cabecera el predictor de cada fila.
+     * @param residuos Diferencias de predicción, de izquierda a derecha y de arriba a abajo.
+     * @param longitudes Longitud del código de cada diferencia, calculada sobre las propias diferencias.
+     * @param predictores Predictor utilizado en cada fila, o un arreglo vacío si no hubo predicción.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirCanonico(int[] residuos, byte[] longitudes, byte[] predictores, String nombre_archivo,
+                                         int ancho_img, int alto_img) throws IOException
+    {
+        int[] codigos = HuffmanCanonico.asignarCodigos(longitudes);
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CabeceraHuff(CabeceraHuff.MODO_CANONICO, ancho_img, alto_img, longitudes).conPredictores(predictores).escribir(canal);
+
+            EscritorBits escritor = new EscritorBits(canal);
+            codificar(residuos, 0, residuos.length, codigos, longitudes, escritor);
+            escritor.vaciar();
+        }
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario autocontenido, en
+     * formato canónico, calculando el código a partir de la cantidad de ocurrencias de cada nivel de gris
+     * en la propia imagen.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirCanonico(int[] pixeles, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        byte[] longitudes = ConstructorHuffman.getLongitudes(Utils.getConteos(pixeles, 256));
+        comprimirCanonico(pixeles, longitudes, nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario autocontenido, en
+     * formato canónico, con códigos de longitud acotada. El límite mantiene pequeñas las tablas de
+     * decodificación a cambio de una pérdida de compresión que, para límites como 12 o 15 bits, es
+     * despreciable.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param maxima_longitud Longitud máxima de los códigos, por ejemplo LONGITUD_ACOTADA.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirCanonico(int[] pixeles, int maxima_longitud, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        byte[] longitudes = ConstructorHuffman.getLongitudesLimitadas(Utils.getConteos(pixeles, 256), maxima_longitud);
+        comprimirCanonico(pixeles, longitudes, nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario autocontenido, en
+     * formato canónico, codificando las diferencias de predicción en lugar de los niveles de gris. El
+     * predictor se elige fila por fila y el código se calcula sobre las propias diferencias.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirPredictivo(int[] pixeles, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        int[] residuos = new int[pixeles.length];
+        byte[] predictores = Prediccion.filtrar(pixeles, ancho_img, alto_img, residuos);
+        byte[] longitudes = ConstructorHuffman.getLongitudes(Utils.getConteos(residuos, 256));
+
+        comprimirCanonico(residuos, longitudes, predictores, nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que levanta un archivo binario autocontenido, generado por comprimirCanonico(),
+     * CodificadorBloques.comprimir(), CompresorAdaptativo, CodificadorRANS, CodificadorContextos,
+     * CodificadorColor, CodificadorRunLengthHuffman o CodificadorRunLength2D, y reconstruye la imagen a partir de la
+     * información de su cabecera. Si la cabecera indica que los datos son diferencias de predicción, la imagen se
+     * reconstruye a partir de ellas.
+     * @param archivo Archivo binario a descomprimir.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida o el archivo no sea canónico.
+     */
+    public static BufferedImage descomprimir(File archivo) throws IOException
+    {
+        return descomprimir(archivo, false);
+    }
+
+    /**
+     * Método estático que levanta un archivo binario autocontenido y reconstruye la imagen, pudiendo
+     * elegir la tabla de decodificación a utilizar en los modos de un único código.
+     * @param archivo Archivo binario a descomprimir.
+     * @param multiples_simbolos TRUE: usa TablaDecodificacionMultiple, que resuelve varios píxeles por
+     *                           consulta; FALSE: usa TablaDecodificacion.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida o el archivo no sea canónico.
+     */
+    public static BufferedImage descomprimir(File archivo, boolean multiples_simbolos) throws IOException
+    {
+        ByteBuffer datos = LectorBits.mapearArchivo(archivo);
+        CabeceraHuff cabecera = CabeceraHuff.leer(datos);
+
+        BufferedImage img;
+        switch (cabecera.getModo()) {
+            case CabeceraHuff.MODO_CANONICO:
+                img = descomprimirCanonico(datos, cabecera, crearDecodificador(cabecera.getLongitudes(), multiples_simbolos));
+                break;
+            case CabeceraHuff.MODO_BLOQUES:
+                img = CodificadorBloques.descomprimir(datos, cabecera, crearDecodificador(cabecera.getLongitudes(), multiples_simbolos));
+                break;
+            case CabeceraHuff.MODO_ADAPTATIVO:
+                img = CompresorAdaptativo.descomprimir(datos, cabecera);
+                break;
+            case CabeceraHuff.MODO_RANS:
+                img = CodificadorRANS.descomprimir(datos, cabecera);
+                break;
+            case CabeceraHuff.MODO_CONTEXTOS:
+                img = CodificadorContextos.descomprimir(datos, cabecera);
+                break;
+            case CabeceraHuff.MODO_COLOR:
+                img = CodificadorColor.descomprimir(datos, cabecera);
+                break;
+            case CabeceraHuff.MODO_RUNLENGTH:
+                img = CodificadorRunLengthHuffman.descomprimir(datos, cabecera);
+                break;
+            case CabeceraHuff.MODO_RUNLENGTH_2D:
+                img = CodificadorRunLength2D.descomprimir(datos, cabecera);
+                break;
+            default:
+                throw new IOException("Modo de compresión desconocido: " + cabecera.getModo());
+        }
+
+        if (cabecera.getPredictores().length > 0)
+            Prediccion.reconstruir(img, cabecera.getPredictores());
+
+        return img;
+    }
+
+    /**
+     * Método privado que decodifica los datos de un archivo en formato canónico.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @param decodificador Tabla de decodificación del código canónico de la cabecera.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que los datos estén truncados.
+     */
+    private static BufferedImage descomprimirCanonico(ByteBuffer datos, CabeceraHuff cabecera, DecodificadorSimbolos decodificador) throws IOException
+    {
+        BufferedImage img = new BufferedImage(cabecera.getAncho(), cabecera.getAlto(), BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        LectorBits lector = new LectorBits(datos);
+        decodificador.decodificar(lector, pixeles, 0, pixeles.length);
+        lector.verificarFin();
+
+        for (int i = 0; i < pixeles.length; i++)
+            pixeles[i] = 0xFF000000 | (pixeles[i] * 0x010101);
+
+        return img;
+    }
+
+    /**
+     * Método estático que genera la tabla de decodificación correspondiente a un código canónico.
+     * La tabla de varios símbolos sólo se utiliza si el alfabeto lo permite.
+     * @param longitudes Longitud del código canónico de cada símbolo.
+     * @param multiples_simbolos TRUE: intenta usar TablaDecodificacionMultiple; FALSE: usa TablaDecodificacion.
+     * @return Tabla de decodificación.
+     */
+    public static DecodificadorSimbolos crearDecodificador(byte[] longitudes, boolean multiples_simbolos)
+    {
+        int[] codigos = HuffmanCanonico.asignarCodigos(longitudes);
+
+        if (multiples_simbolos && longitudes.length <= 256)
+            return new TablaDecodificacionMultiple(codigos, longitudes);
+
+        return new TablaDecodificacion(codigos, longitudes);
+    }
+
+    /**
+     * Método estático que indica si un archivo binario está en formato canónico, es decir, si se puede
+     * descomprimir sin el archivo de distribución de probabilidades.
+     * @param archivo Archivo binario a analizar.
+     * @return Booleano que indica si el archivo está en formato canónico.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static boolean esCanonico(File archivo) throws IOException
+    {
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer inicio = ByteBuffer.allocate(4);
+            while (inicio.hasRemaining() && canal.read(inicio) != -1);
+            inicio.flip();
+
+            return CabeceraHuff.esCanonico(inicio);
+        }
+    }
+
     /**
      * Método estático que se encarga de bajar una cadena de texto a un archivo binario, con el nombre deseado.
      * Además se guardan en el mismo binario, las dimensiones de la imagen.
@@ -168,7 +522,10 @@ public class CodificadorHuffmanNuevo {
      * @param ancho_img Ancho de la imagen.
      * @param alto_img Alto de la imagen.
      * @throws IOException En caso de que se produzcan errores de entrada/salida
+     * @deprecated Requiere la codificación completa como cadena de texto; usar
+     * {@link #comprimir(int[], int[], byte[], String, int, int)}.
      */
+    @Deprecated
     public static void generarComprimido(String cadena, String nombre_archivo, int ancho_img, int alto_img) throws IOException
     {
         char buffer = 0;
@@ -227,7 +584,10 @@ public class CodificadorHuffmanNuevo {
      * @param archivo Archivo binario a leer.
      * @return Lista de tres elementos, en el siguiente orden: ANCHO, ALTO, COD_HUFFMAN
      * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     * @deprecated Lee de a un byte y expande cada bit a un caracter; usar {@link LectorBits#mapearArchivo(File)}
+     * junto con {@link LectorBits}.
      */
+    @Deprecated
     public static List<String> leerArchivo(File archivo) throws IOException
     {
         List<String> lista_retornar = new ArrayList<>();
@@ -0,0 +1,276 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Clase que define un codificador de entropía rANS (range Asymmetric Numeral Systems), alternativo a
+ * Huffman. A diferencia de un código prefijo, rANS puede asignar a cada símbolo una cantidad fraccionaria
+ * de bits, por lo que en distribuciones muy sesgadas comprime mucho más cerca de la entropía.
+ *
+ * Las frecuencias de los símbolos se cuantizan para que sumen 2^PRECISION, y se guardan en la cabecera.
+ * El estado es un entero de 32 bits que se mantiene en [L, 256 * L) y se renormaliza de a bytes.
+ * Se utilizan ESTADOS estados intercalados (el píxel i usa el estado i % ESTADOS) que comparten el mismo
+ * flujo de bytes; como los estados no dependen entre sí, el procesador puede decodificar varios píxeles
+ * a la vez.
+ *
+ * El codificador recorre los símbolos de atrás hacia adelante, de manera que el decodificador los obtiene
+ * en el orden original. Los datos comprimidos comienzan con el estado final de cada uno de los estados,
+ * seguido del flujo de bytes.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CodificadorRANS {
+
+    /**
+     * Cantidad de bits con la que se cuantizan las frecuencias: éstas suman 2^PRECISION.
+     */
+    public static final int PRECISION = 14;
+
+    /**
+     * Cantidad de estados intercalados.
+     */
+    public static final int ESTADOS = 4;
+
+    private static final int TOTAL = 1 << PRECISION;
+    private static final int MASCARA = TOTAL - 1;
+
+    // Cota inferior del estado; el estado normalizado está en [L, 256 * L)
+    private static final int L = 1 << 23;
+    private static final int DESPLAZAMIENTO_LIMITE = 23 - PRECISION + 8;
+
+    /**
+     * Método estático que cuantiza los conteos de cada símbolo para que sumen 2^PRECISION, asignando al
+     * menos 1 a cada símbolo que aparece.
+     * @param conteos Arreglo indexado por símbolo con su cantidad de ocurrencias.
+     * @return Arreglo indexado por símbolo con su frecuencia cuantizada (0 si el símbolo no aparece).
+     */
+    public static int[] normalizarFrecuencias(int[] conteos)
+    {
+        int[] frecuencias = new int[conteos.length];
+        long total = 0;
+        int mayor = 0;
+
+        for (int s = 0; s < conteos.length; s++) {
+            total += conteos[s];
+            if (conteos[s] > conteos[mayor])
+                mayor = s;
+        }
+
+        if (total == 0) {
+            frecuencias[mayor] = TOTAL;
+            return frecuencias;
+        }
+
+        int suma = 0;
+        for (int s = 0; s < conteos.length; s++) {
+            if (conteos[s] > 0)
+                frecuencias[s] = (int) Math.max(1, conteos[s] * (long) TOTAL / total);
+            suma += frecuencias[s];
+        }
+
+        // El redondeo hacia abajo deja un sobrante que se asigna al símbolo más frecuente, donde menos
+        // afecta a la longitud media
+        if (suma < TOTAL)
+            frecuencias[mayor] += TOTAL - suma;
+
+        // Los símbolos forzados a 1 pueden hacer que la suma se pase: se descuenta de las frecuencias más altas
+        while (suma > TOTAL) {
+            int maximo = 0;
+            for (int s = 1; s < frecuencias.length; s++)
+                if (frecuencias[s] > frecuencias[maximo])
+                    maximo = s;
+
+            frecuencias[maximo]--;
+            suma--;
+        }
+
+        return frecuencias;
+    }
+
+    /**
+     * Método estático que codifica una tira de símbolos con rANS.
+     * @param simbolos Arreglo con los símbolos a codificar.
+     * @param desde Posición del primer símbolo a codificar.
+     * @param hasta Posición siguiente al último símbolo a codificar.
+     * @param frecuencias Frecuencia cuantizada de cada símbolo; todo símbolo a codificar debe tener frecuencia positiva.
+     * @return Datos comprimidos: el estado final de cada estado intercalado seguido del flujo de bytes.
+     */
+    public static byte[] codificar(int[] simbolos, int desde, int hasta, int[] frecuencias)
+    {
+        int[] acumuladas = getAcumuladas(frecuencias);
+
+        // Cada símbolo emite a lo sumo 2 bytes, ya que su frecuencia es al menos 1
+        byte[] salida = new byte[2 * (hasta - desde) + 4 * ESTADOS];
+        int posicion = salida.length;
+
+        int[] estados = new int[ESTADOS];
+        Arrays.fill(estados, L);
+
+        for (int i = hasta - 1; i >= desde; i--) {
+            int k = (i - desde) & (ESTADOS - 1);
+            int simbolo = simbolos[i];
+            int frecuencia = frecuencias[simbolo];
+            int x = estados[k];
+
+            long limite = (long) frecuencia << DESPLAZAMIENTO_LIMITE;
+            while (x >= limite) {
+                salida[--posicion] = (byte) x;
+                x >>>= 8;
+            }
+
+            estados[k] = ((x / frecuencia) << PRECISION) + (x % frecuencia) + acumuladas[simbolo];
+        }
+
+        for (int k = ESTADOS - 1; k >= 0; k--) {
+            posicion -= 4;
+            salida[posicion] = (byte) (estados[k] >>> 24);
+            salida[posicion + 1] = (byte) (estados[k] >>> 16);
+            salida[posicion + 2] = (byte) (estados[k] >>> 8);
+            salida[posicion + 3] = (byte) estados[k];
+        }
+
+        return Arrays.copyOfRange(salida, posicion, salida.length);
+    }
+
+    /**
+     * Método estático que decodifica una tira de símbolos codificada con codificar(), depositándolos en
+     * el arreglo destino.
+     * @param datos Buffer posicionado al comienzo de los datos comprimidos.
+     * @param frecuencias Frecuencia cuantizada de cada símbolo, la misma utilizada al codificar.
+     * @param destino Arreglo donde se depositan los símbolos.
+     * @param desde Posición del arreglo a partir de la cuál se escribe.
+     * @param cantidad Cantidad de símbolos a decodificar.
+     * @throws IOException En caso de que los datos terminen antes de decodificar todos los símbolos.
+     */
+    public static void decodificar(ByteBuffer datos, int[] frecuencias, int[] destino, int desde, int cantidad) throws IOException
+    {
+        int[] acumuladas = getAcumuladas(frecuencias);
+
+        // Símbolo correspondiente a cada una de las 2^PRECISION ranuras
+        int[] ranuras = new int[TOTAL];
+        for (int s = 0; s < frecuencias.length; s++)
+            Arrays.fill(ranuras, acumuladas[s], acumuladas[s] + frecuencias[s], s);
+
+        if (datos.remaining() < 4 * ESTADOS)
+            throw new IOException("Datos rANS truncados");
+
+        int[] estados = new int[ESTADOS];
+        for (int k = 0; k < ESTADOS; k++)
+            estados[k] = datos.getInt();
+
+        int hasta = desde + cantidad;
+        for (int i = desde; i < hasta; i++) {
+            int k = (i - desde) & (ESTADOS - 1);
+            int x = estados[k];
+            int ranura = x & MASCARA;
+            int simbolo = ranuras[ranura];
+
+            x = frecuencias[simbolo] * (x >>> PRECISION) + ranura - acumuladas[simbolo];
+            while (x < L) {
+                if (!datos.hasRemaining())
+                    throw new IOException("Datos rANS truncados");
+                x = (x << 8) | (datos.get() & 0xFF);
+            }
+
+            estados[k] = x;
+            destino[i] = simbolo;
+        }
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en modo rANS,
+     * calculando las frecuencias a partir de los propios píxeles.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        comprimir(pixeles, Utils.getConteos(pixeles, 256), nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en modo rANS, a
+     * partir del histograma de niveles de gris.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param conteos Cantidad de ocurrencias de cada nivel de gris; todo nivel presente debe tener conteo positivo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, int[] conteos, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        comprimir(pixeles, conteos, new byte[0], nombre_archivo, ancho_img, alto_img);
+    }
+
+    /**
+     * Método estático que comprime en modo rANS las diferencias generadas por Prediccion.filtrar(),
+     * guardando en la cabecera el predictor de cada fila.
+     * @param residuos Diferencias de predicción, de izquierda a derecha y de arriba a abajo.
+     * @param conteos Cantidad de ocurrencias de cada diferencia.
+     * @param predictores Predictor utilizado en cada fila, o un arreglo vacío si no hubo predicción.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] residuos, int[] conteos, byte[] predictores, String nombre_archivo,
+                                 int ancho_img, int alto_img) throws IOException
+    {
+        int[] frecuencias = normalizarFrecuencias(conteos);
+        ByteBuffer datos = ByteBuffer.wrap(codificar(residuos, 0, residuos.length, frecuencias));
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CabeceraHuff(CabeceraHuff.MODO_RANS, ancho_img, alto_img, frecuencias).conPredictores(predictores).escribir(canal);
+
+            while (datos.hasRemaining())
+                canal.write(datos);
+        }
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo rANS.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que los datos estén truncados.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera) throws IOException
+    {
+        BufferedImage img = new BufferedImage(cabecera.getAncho(), cabecera.getAlto(), BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        decodificar(datos, cabecera.getFrecuencias(), pixeles, 0, pixeles.length);
+
+        for (int i = 0; i < pixeles.length; i++)
+            pixeles[i] = 0xFF000000 | (pixeles[i] * 0x010101);
+
+        return img;
+    }
+
+    /**
+     * Método privado que calcula la frecuencia acumulada de cada símbolo, es decir, la suma de las
+     * frecuencias de los símbolos anteriores.
+     * @param frecuencias Frecuencia cuantizada de cada símbolo.
+     * @return Arreglo indexado por símbolo con su frecuencia acumulada.
+     */
+    private static int[] getAcumuladas(int[] frecuencias)
+    {
+        int[] acumuladas = new int[frecuencias.length];
+
+        for (int s = 1; s < frecuencias.length; s++)
+            acumuladas[s] = acumuladas[s - 1] + frecuencias[s - 1];
+
+        return acumuladas;
+    }
+}
@@ -0,0 +1,444 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Clase que define la compresión con pérdida Run-Length en un formato binario, que reemplaza al archivo
+ * de texto generado por Utils.runLength().
+ * Cada corrida agrupa los píxeles consecutivos cuyo nivel de gris difiere del primero en a lo sumo un
+ * umbral, y se representa por el nivel de gris del primero.
+ *
+ * El formato es el siguiente (enteros en big-endian):
+ * - 4 bytes: número mágico "RLE1".
+ * - 4 bytes: ancho de la imagen.
+ * - 4 bytes: alto de la imagen.
+ * - Por cada corrida, 1 byte con el nivel de gris y la longitud de la corrida como entero de longitud
+ *   variable (LEB128): 7 bits por byte, comenzando por los menos significativos, con el bit más alto
+ *   encendido en todos los bytes salvo el último.
+ *
+ * En el formato por bandas la imagen se divide en franjas horizontales de filas, y ninguna corrida pasa
+ * de una franja a la siguiente. El número mágico es "RLE2" y a continuación del alto se agrega:
+ * - 4 bytes: cantidad de filas por banda.
+ * - 4 bytes: cantidad de bandas (B).
+ * - B x 8 bytes: posición del comienzo de cada banda, en bytes desde el final del índice.
+ * Las bandas se comprimen y descomprimen en paralelo, y cada una puede descomprimirse por separado.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CodificadorRunLength {
+
+    /**
+     * Número mágico con el que comienzan los archivos Run-Length binarios ("RLE1").
+     */
+    public static final int MAGICO = 0x524C4531;
+
+    /**
+     * Número mágico con el que comienzan los archivos Run-Length binarios por bandas ("RLE2").
+     */
+    public static final int MAGICO_BANDAS = 0x524C4532;
+
+    /**
+     * Cantidad de filas por banda utilizada por defecto.
+     */
+    public static final int FILAS_POR_BANDA = 64;
+
+    private static final int TAMANIO_CABECERA = 12;
+    private static final int TAMANIO_BUFFER = 1 << 16;
+
+    // Nivel de gris más la longitud de la corrida, que ocupa a lo sumo 5 bytes
+    private static final int MAXIMO_BYTES_CORRIDA = 6;
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo Run-Length binario.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida; 0 para comprimir sin pérdida.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, int umbral, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".rle").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+
+            buffer.putInt(MAGICO);
+            buffer.putInt(ancho_img);
+            buffer.putInt(alto_img);
+
+            int i = 0;
+            while (i < pixeles.length) {
+                int j = getFinCorrida(pixeles, i, umbral);
+
+                if (buffer.remaining() < MAXIMO_BYTES_CORRIDA)
+                    vaciar(buffer, canal);
+
+                buffer.put((byte) pixeles[i]);
+                escribirLongitud(buffer, j - i);
+                i = j;
+            }
+
+            vaciar(buffer, canal);
+        }
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo Run-Length binario por
+     * bandas, utilizando el pool común de hilos.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida; 0 para comprimir sin pérdida.
+     * @param filas_por_banda Cantidad de filas de cada banda.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirBandas(int[] pixeles, int umbral, int filas_por_banda, String nombre_archivo,
+                                       int ancho_img, int alto_img) throws IOException
+    {
+        comprimirBandas(pixeles, umbral, filas_por_banda, nombre_archivo, ancho_img, alto_img, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo Run-Length binario por
+     * bandas. Cada banda se codifica en memoria en una tarea independiente y luego se vuelcan todas, en
+     * orden, detrás del índice.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida; 0 para comprimir sin pérdida.
+     * @param filas_por_banda Cantidad de filas de cada banda.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimirBandas(int[] pixeles, int umbral, int filas_por_banda, String nombre_archivo,
+                                       int ancho_img, int alto_img, ForkJoinPool pool) throws IOException
+    {
+        if (filas_por_banda <= 0)
+            throw new IllegalArgumentException("La cantidad de filas por banda debe ser positiva");
+
+        int cantidad_bandas = (alto_img + filas_por_banda - 1) / filas_por_banda;
+        ByteBuffer[] bandas = new ByteBuffer[cantidad_bandas];
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+        for (int b = 0; b < cantidad_bandas; b++) {
+            final int banda = b;
+            tareas.add(pool.submit(() -> {
+                int desde = banda * filas_por_banda * ancho_img;
+                int hasta = Math.min(alto_img, (banda + 1) * filas_por_banda) * ancho_img;
+
+                // En el peor caso cada píxel es una corrida de longitud 1, que ocupa 2 bytes
+                ByteBuffer buffer = ByteBuffer.allocate(2 * (hasta - desde));
+
+                int i = desde;
+                while (i < hasta) {
+                    int j = getFinCorrida(pixeles, i, hasta, umbral);
+                    buffer.put((byte) pixeles[i]);
+                    escribirLongitud(buffer, j - i);
+                    i = j;
+                }
+
+                buffer.flip();
+                bandas[banda] = buffer;
+            }));
+        }
+        CodificadorBloques.esperar(tareas);
+
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANIO_CABECERA + 8 + 8 * cantidad_bandas);
+        cabecera.putInt(MAGICO_BANDAS);
+        cabecera.putInt(ancho_img);
+        cabecera.putInt(alto_img);
+        cabecera.putInt(filas_por_banda);
+        cabecera.putInt(cantidad_bandas);
+
+        long posicion = 0;
+        for (ByteBuffer banda : bandas) {
+            cabecera.putLong(posicion);
+            posicion += banda.remaining();
+        }
+        cabecera.flip();
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".rle").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (cabecera.hasRemaining())
+                canal.write(cabecera);
+
+            for (ByteBuffer banda : bandas)
+                while (banda.hasRemaining())
+                    canal.write(banda);
+        }
+    }
+
+    /**
+     * Método estático que calcula dónde termina la corrida que comienza en una posición dada, es decir,
+     * la posición del primer píxel cuyo nivel de gris difiere del primero de la corrida en más del umbral.
+     * @param pixeles Niveles de gris de la imagen.
+     * @param desde Posición del primer píxel de la corrida.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida.
+     * @return Posición siguiente al último píxel de la corrida.
+     */
+    public static int getFinCorrida(int[] pixeles, int desde, int umbral)
+    {
+        return getFinCorrida(pixeles, desde, pixeles.length, umbral);
+    }
+
+    /**
+     * Método estático que calcula dónde termina la corrida que comienza en una posición dada, sin pasar de
+     * una posición límite.
+     * @param pixeles Niveles de gris de la imagen.
+     * @param desde Posición del primer píxel de la corrida.
+     * @param hasta Posición siguiente al último píxel que puede abarcar la corrida.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida.
+     * @return Posición siguiente al último píxel de la corrida.
+     */
+    public static int getFinCorrida(int[] pixeles, int desde, int hasta, int umbral)
+    {
+        int valor = pixeles[desde];
+        int j = desde + 1;
+
+        while (j < hasta && Math.abs(pixeles[j] - valor) <= umbral)
+            j++;
+
+        return j;
+    }
+
+    /**
+     * Método estático que levanta un archivo Run-Length binario, en cualquiera de sus dos formatos, y
+     * reconstruye la imagen en escala de grises utilizando el pool común de hilos.
+     * @param archivo Archivo a descomprimir.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida o el archivo no sea válido.
+     */
+    public static BufferedImage descomprimir(File archivo) throws IOException
+    {
+        return descomprimir(archivo, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Método estático que levanta un archivo Run-Length binario, en cualquiera de sus dos formatos, y
+     * reconstruye la imagen en escala de grises. Cada corrida se escribe directamente sobre el raster de la
+     * imagen resultante; en el formato por bandas, cada banda se decodifica en una tarea independiente.
+     * @param archivo Archivo a descomprimir.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida o el archivo no sea válido.
+     */
+    public static BufferedImage descomprimir(File archivo, ForkJoinPool pool) throws IOException
+    {
+        ByteBuffer datos = LectorBits.mapearArchivo(archivo);
+        int magico = leerMagico(datos);
+
+        int ancho = datos.getInt();
+        int alto = datos.getInt();
+        if (ancho < 0 || alto < 0)
+            throw new IOException("Cabecera Run-Length corrupta");
+
+        BufferedImage img = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        if (magico == MAGICO) {
+            decodificarCorridas(datos, pixeles, 0, pixeles.length);
+            if (datos.hasRemaining())
+                throw new IOException("Las corridas exceden el tamaño de la imagen");
+            return img;
+        }
+
+        int filas_por_banda = datos.getInt();
+        long[] desplazamientos = leerIndice(datos, alto, filas_por_banda);
+        int inicio_datos = datos.position();
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+        for (int b = 0; b < desplazamientos.length; b++) {
+            final int banda = b;
+            tareas.add(pool.submit(() -> {
+                int desde = banda * filas_por_banda * ancho;
+                int hasta = Math.min(alto, (banda + 1) * filas_por_banda) * ancho;
+
+                ByteBuffer vista = datos.duplicate();
+                vista.position(inicio_datos + (int) desplazamientos[banda]);
+
+                try {
+                    decodificarCorridas(vista, pixeles, desde, hasta);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        CodificadorBloques.esperar(tareas);
+
+        return img;
+    }
+
+    /**
+     * Método estático que descomprime una única banda de un archivo Run-Length binario por bandas, sin
+     * leer las demás.
+     * @param archivo Archivo a descomprimir.
+     * @param banda Número de banda, comenzando en 0 por la de más arriba.
+     * @return Imagen con las filas de la banda.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida, el archivo no esté en el
+     * formato por bandas o la banda no exista.
+     */
+    public static BufferedImage descomprimirBanda(File archivo, int banda) throws IOException
+    {
+        ByteBuffer datos = LectorBits.mapearArchivo(archivo);
+
+        if (leerMagico(datos) != MAGICO_BANDAS)
+            throw new IOException("El archivo no está en formato Run-Length por bandas");
+
+        int ancho = datos.getInt();
+        int alto = datos.getInt();
+        int filas_por_banda = datos.getInt();
+        if (ancho < 0)
+            throw new IOException("Cabecera Run-Length corrupta");
+
+        long[] desplazamientos = leerIndice(datos, alto, filas_por_banda);
+        if (banda < 0 || banda >= desplazamientos.length)
+            throw new IOException("La banda " + banda + " no existe");
+
+        int filas = Math.min(alto, (banda + 1) * filas_por_banda) - banda * filas_por_banda;
+        BufferedImage img = new BufferedImage(ancho, filas, BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        datos.position(datos.position() + (int) desplazamientos[banda]);
+        decodificarCorridas(datos, pixeles, 0, pixeles.length);
+
+        return img;
+    }
+
+    /**
+     * Método privado que lee el número mágico de un archivo Run-Length binario.
+     * @param datos Buffer fuente, posicionado al comienzo del archivo.
+     * @return Número mágico leído, MAGICO o MAGICO_BANDAS.
+     * @throws IOException En caso de que el buffer no comience con un número mágico válido.
+     */
+    private static int leerMagico(ByteBuffer datos) throws IOException
+    {
+        int magico = datos.remaining() >= TAMANIO_CABECERA ? datos.getInt() : 0;
+
+        if (magico != MAGICO && magico != MAGICO_BANDAS)
+            throw new IOException("El archivo no está en formato Run-Length binario");
+
+        return magico;
+    }
+
+    /**
+     * Método privado que lee el índice del formato por bandas.
+     * @param datos Buffer fuente, posicionado en la cantidad de bandas.
+     * @param alto Alto de la imagen.
+     * @param filas_por_banda Cantidad de filas de cada banda.
+     * @return Posición del comienzo de cada banda, en bytes desde el final del índice.
+     * @throws IOException En caso de que el índice no sea válido.
+     */
+    private static long[] leerIndice(ByteBuffer datos, int alto, int filas_por_banda) throws IOException
+    {
+        if (datos.remaining() < 4 || alto < 0 || filas_por_banda <= 0)
+            throw new IOException("Índice de bandas corrupto");
+
+        int cantidad_bandas = datos.getInt();
+        if (cantidad_bandas != (int) ((alto + (long) filas_por_banda - 1) / filas_por_banda) ||
+                cantidad_bandas > datos.remaining() / 8)
+            throw new IOException("Índice de bandas corrupto");
+
+        long[] desplazamientos = new long[cantidad_bandas];
+        for (int b = 0; b < cantidad_bandas; b++)
+            desplazamientos[b] = datos.getLong();
+
+        for (int b = 0; b < cantidad_bandas; b++)
+            if (desplazamientos[b] < 0 || desplazamientos[b] > datos.remaining())
+                throw new IOException("Índice de bandas corrupto");
+
+        return desplazamientos;
+    }
+
+    /**
+     * Método privado que decodifica corridas hasta completar un rango de píxeles, escribiendo cada una
+     * directamente en el arreglo destino.
+     * @param datos Buffer fuente, posicionado en la primera corrida.
+     * @param pixeles Arreglo destino.
+     * @param desde Posición del primer píxel a completar.
+     * @param hasta Posición siguiente al último píxel a completar.
+     * @throws IOException En caso de que las corridas no coincidan con el rango.
+     */
+    private static void decodificarCorridas(ByteBuffer datos, int[] pixeles, int desde, int hasta) throws IOException
+    {
+        int indice = desde;
+
+        while (indice < hasta) {
+            if (!datos.hasRemaining())
+                throw new IOException("Faltan " + (hasta - indice) + " píxeles en el archivo Run-Length");
+
+            int valor = datos.get() & 0xFF;
+            int longitud = leerLongitud(datos);
+
+            if (longitud < 0 || longitud > hasta - indice)
+                throw new IOException("Las corridas exceden el tamaño de la imagen");
+
+            Arrays.fill(pixeles, indice, indice + longitud, 0xFF000000 | (valor * 0x010101));
+            indice += longitud;
+        }
+    }
+
+    /**
+     * Método privado que escribe la longitud de una corrida como entero de longitud variable.
+     * @param buffer Buffer destino.
+     * @param longitud Longitud de la corrida.
+     */
+    private static void escribirLongitud(ByteBuffer buffer, int longitud)
+    {
+        while ((longitud & ~0x7F) != 0) {
+            buffer.put((byte) (longitud | 0x80));
+            longitud >>>= 7;
+        }
+        buffer.put((byte) longitud);
+    }
+
+    /**
+     * Método privado que lee la longitud de una corrida escrita como entero de longitud variable.
+     * @param datos Buffer fuente.
+     * @return Longitud de la corrida.
+     * @throws IOException En caso de que el entero esté truncado o sea demasiado largo.
+     */
+    private static int leerLongitud(ByteBuffer datos) throws IOException
+    {
+        int longitud = 0;
+
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+            if (!datos.hasRemaining())
+                throw new IOException("Archivo Run-Length truncado");
+
+            int b = datos.get();
+            longitud |= (b & 0x7F) << desplazamiento;
+            if (b >= 0)
+                return longitud;
+        }
+
+        throw new IOException("Longitud de corrida inválida");
+    }
+
+    /**
+     * Método privado que vuelca el contenido del buffer en el canal y lo deja listo para seguir escribiendo.
+     * @param buffer Buffer a volcar.
+     * @param canal Canal destino.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    private static void vaciar(ByteBuffer buffer, FileChannel canal) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            canal.write(buffer);
+        buffer.clear();
+    }
+}
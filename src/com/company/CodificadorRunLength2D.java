@@ -0,0 +1,314 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Clase que define la compresión Run-Length bidimensional, al estilo de la codificación de fax G4. Cada
+ * fila se divide en corridas que no pasan a la fila siguiente, y cada corrida se codifica respecto de las
+ * corridas de la fila anterior (la referencia). Sea a0 el comienzo de la corrida actual, b1 el primer fin
+ * de corrida de la referencia posterior a a0, y p el nivel de gris previsto, que es el de la corrida de la
+ * referencia que contiene a a0:
+ * - VERTICAL (d): la corrida tiene nivel p y termina en b1 + d, con |d| <= MAXIMO_DESPLAZAMIENTO.
+ * - PASO: la corrida tiene nivel p y sigue más allá de b1; la codificación continúa desde b1 con el mismo
+ *   nivel previsto.
+ * - HORIZONTAL: la corrida se escribe en forma literal, con su nivel de gris y su longitud.
+ * La primera fila se codifica respecto de una fila virtual de una única corrida de nivel 0.
+ *
+ * Los modos y los niveles de gris literales se codifican con dos códigos canónicos guardados en la
+ * cabecera, y las longitudes literales con Golomb-Rice adaptativo. En imágenes con grandes regiones
+ * uniformes casi todas las corridas repiten los límites de la fila anterior y se codifican con muy pocos
+ * bits.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CodificadorRunLength2D {
+
+    /**
+     * Cantidad de códigos canónicos de la cabecera: el de los modos y el de los niveles de gris literales.
+     */
+    public static final int CANTIDAD_TABLAS = 2;
+
+    /**
+     * Máxima distancia entre el fin de una corrida y el de la referencia para usar el modo vertical.
+     */
+    public static final int MAXIMO_DESPLAZAMIENTO = 3;
+
+    // Los modos verticales ocupan los símbolos 0 a 2 * MAXIMO_DESPLAZAMIENTO, con VERTICAL el de d = 0
+    private static final int VERTICAL = MAXIMO_DESPLAZAMIENTO;
+    private static final int PASO = 2 * MAXIMO_DESPLAZAMIENTO + 1;
+    private static final int HORIZONTAL = PASO + 1;
+    static final int CANTIDAD_MODOS = HORIZONTAL + 1;
+
+    private static final int CANTIDAD_NIVELES = 256;
+
+    // Estado inicial del promedio de longitudes literales y cantidad a partir de la cual se reduce a la mitad
+    private static final int SUMA_INICIAL = 4;
+    private static final int REINICIO = 64;
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en modo Run-Length
+     * bidimensional.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida; 0 para comprimir sin pérdida.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, int umbral, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        int[] simbolos = analizar(pixeles, umbral, ancho_img, alto_img);
+
+        int[] conteos_modos = new int[CANTIDAD_MODOS];
+        int[] conteos_niveles = new int[CANTIDAD_NIVELES];
+        for (int i = 0; i < simbolos.length; i++) {
+            conteos_modos[simbolos[i]]++;
+            if (simbolos[i] == HORIZONTAL) {
+                conteos_niveles[simbolos[i + 1]]++;
+                i += 2;
+            }
+        }
+
+        ConstructorHuffman constructor = new ConstructorHuffman(Math.max(CANTIDAD_MODOS, CANTIDAD_NIVELES));
+        byte[][] tablas = {getLongitudes(conteos_modos, constructor), getLongitudes(conteos_niveles, constructor)};
+        int[] codigos_modos = HuffmanCanonico.asignarCodigos(tablas[0]);
+        int[] codigos_niveles = HuffmanCanonico.asignarCodigos(tablas[1]);
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CabeceraHuff(CabeceraHuff.MODO_RUNLENGTH_2D, ancho_img, alto_img, tablas).escribir(canal);
+
+            EscritorBits escritor = new EscritorBits(canal);
+            int suma = SUMA_INICIAL, cantidad = 1;
+
+            for (int i = 0; i < simbolos.length; i++) {
+                int modo = simbolos[i];
+                escritor.escribirBits(codigos_modos[modo], tablas[0][modo]);
+
+                if (modo == HORIZONTAL) {
+                    int nivel = simbolos[++i];
+                    int longitud = simbolos[++i];
+                    escritor.escribirBits(codigos_niveles[nivel], tablas[1][nivel]);
+                    CodificadorRunLengthHuffman.escribirRice(escritor, longitud - 1,
+                            CodificadorRunLengthHuffman.getParametro(suma, cantidad));
+
+                    suma += longitud;
+                    if (++cantidad == REINICIO) {
+                        suma >>>= 1;
+                        cantidad >>>= 1;
+                    }
+                }
+            }
+
+            escritor.vaciar();
+        }
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo Run-Length bidimensional. Cada corrida
+     * se escribe directamente sobre el raster de la imagen resultante.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que las corridas no coincidan con el tamaño de la imagen o los datos estén truncados.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera) throws IOException
+    {
+        int ancho = cabecera.getAncho();
+        int alto = cabecera.getAlto();
+        BufferedImage img = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        byte[][] tablas = cabecera.getTablas();
+        if (tablas[0].length > CANTIDAD_MODOS || tablas[1].length > CANTIDAD_NIVELES ||
+                (tablas[0].length == 0 && pixeles.length > 0))
+            throw new IOException("Códigos Run-Length corruptos");
+
+        TablaDecodificacion modos = crearTabla(tablas[0]);
+        TablaDecodificacion niveles = crearTabla(tablas[1]);
+        LectorBits lector = new LectorBits(datos);
+        int suma = SUMA_INICIAL, cantidad = 1;
+
+        int[] fin_referencia = new int[ancho + 1], nivel_referencia = new int[ancho + 1];
+        int[] fin_actual = new int[ancho + 1], nivel_actual = new int[ancho + 1];
+        fin_referencia[0] = ancho;
+
+        for (int fila = 0; fila < alto; fila++) {
+            int inicio = fila * ancho;
+            int a0 = 0, k = 0, corridas = 0;
+            int arrastrado = -1;
+
+            while (a0 < ancho) {
+                while (fin_referencia[k] <= a0)
+                    k++;
+                int b1 = fin_referencia[k];
+                int previsto = arrastrado >= 0 ? arrastrado : nivel_referencia[k];
+
+                int modo = modos.decodificarSimbolo(lector);
+                if (modo == PASO) {
+                    if (b1 >= ancho)
+                        throw new IOException("Modo de paso inválido en la fila " + fila);
+                    arrastrado = previsto;
+                    a0 = b1;
+                    continue;
+                }
+
+                // La corrida arrastrada por los modos de paso termina donde comienza una corrida literal
+                int desde = corridas > 0 ? fin_actual[corridas - 1] : 0;
+                int fin, nivel;
+                if (modo == HORIZONTAL) {
+                    if (arrastrado >= 0) {
+                        Arrays.fill(pixeles, inicio + desde, inicio + a0, 0xFF000000 | (arrastrado * 0x010101));
+                        fin_actual[corridas] = a0;
+                        nivel_actual[corridas++] = arrastrado;
+                        desde = a0;
+                    }
+
+                    if (niveles == null)
+                        throw new IOException("Corrida literal sin código de niveles de gris");
+                    nivel = niveles.decodificarSimbolo(lector);
+                    int longitud = CodificadorRunLengthHuffman.leerRice(lector, CodificadorRunLengthHuffman.getParametro(suma, cantidad)) + 1;
+                    if (longitud <= 0 || longitud > ancho - a0)
+                        throw new IOException("Las corridas exceden el ancho de la fila " + fila);
+                    fin = a0 + longitud;
+
+                    suma += longitud;
+                    if (++cantidad == REINICIO) {
+                        suma >>>= 1;
+                        cantidad >>>= 1;
+                    }
+                } else {
+                    nivel = previsto;
+                    fin = b1 + modo - VERTICAL;
+                    if (fin <= a0 || fin > ancho)
+                        throw new IOException("Las corridas exceden el ancho de la fila " + fila);
+                }
+
+                Arrays.fill(pixeles, inicio + desde, inicio + fin, 0xFF000000 | (nivel * 0x010101));
+                fin_actual[corridas] = fin;
+                nivel_actual[corridas++] = nivel;
+                arrastrado = -1;
+                a0 = fin;
+            }
+
+            int[] auxiliar = fin_referencia;
+            fin_referencia = fin_actual;
+            fin_actual = auxiliar;
+            auxiliar = nivel_referencia;
+            nivel_referencia = nivel_actual;
+            nivel_actual = auxiliar;
+        }
+        lector.verificarFin();
+
+        return img;
+    }
+
+    /**
+     * Método privado que recorre la imagen eligiendo el modo de cada corrida, con el mismo recorrido que
+     * realiza el decodificador. Retorna los símbolos en orden: el modo y, en el modo horizontal, a
+     * continuación el nivel de gris y la longitud de la corrida.
+     * @param pixeles Niveles de gris de la imagen.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @return Secuencia de símbolos a codificar.
+     */
+    private static int[] analizar(int[] pixeles, int umbral, int ancho, int alto)
+    {
+        int[] simbolos = new int[Math.max(16, pixeles.length / 4)];
+        int cantidad_simbolos = 0;
+
+        int[] fin_referencia = new int[ancho + 1], nivel_referencia = new int[ancho + 1];
+        int[] fin_actual = new int[ancho + 1], nivel_actual = new int[ancho + 1];
+        fin_referencia[0] = ancho;
+
+        for (int fila = 0; fila < alto; fila++) {
+            int inicio = fila * ancho;
+            int a0 = 0, k = 0, corridas = 0;
+            int arrastrado = -1;
+
+            while (a0 < ancho) {
+                while (fin_referencia[k] <= a0)
+                    k++;
+                int b1 = fin_referencia[k];
+                int previsto = arrastrado >= 0 ? arrastrado : nivel_referencia[k];
+
+                // Fin de la corrida más larga de nivel previsto que comienza en a0
+                int fin_previsto = a0;
+                while (fin_previsto < ancho && Math.abs(pixeles[inicio + fin_previsto] - previsto) <= umbral)
+                    fin_previsto++;
+
+                if (simbolos.length - cantidad_simbolos < 4)
+                    simbolos = Arrays.copyOf(simbolos, 2 * simbolos.length);
+
+                if (fin_previsto > b1 + MAXIMO_DESPLAZAMIENTO) {
+                    simbolos[cantidad_simbolos++] = PASO;
+                    arrastrado = previsto;
+                    a0 = b1;
+                } else if (fin_previsto > a0 && fin_previsto >= b1 - MAXIMO_DESPLAZAMIENTO) {
+                    simbolos[cantidad_simbolos++] = VERTICAL + fin_previsto - b1;
+                    fin_actual[corridas] = fin_previsto;
+                    nivel_actual[corridas++] = previsto;
+                    arrastrado = -1;
+                    a0 = fin_previsto;
+                } else {
+                    if (arrastrado >= 0) {
+                        fin_actual[corridas] = a0;
+                        nivel_actual[corridas++] = arrastrado;
+                    }
+
+                    int fin = CodificadorRunLength.getFinCorrida(pixeles, inicio + a0, inicio + ancho, umbral) - inicio;
+                    simbolos[cantidad_simbolos++] = HORIZONTAL;
+                    simbolos[cantidad_simbolos++] = pixeles[inicio + a0];
+                    simbolos[cantidad_simbolos++] = fin - a0;
+
+                    fin_actual[corridas] = fin;
+                    nivel_actual[corridas++] = pixeles[inicio + a0];
+                    arrastrado = -1;
+                    a0 = fin;
+                }
+            }
+
+            int[] auxiliar = fin_referencia;
+            fin_referencia = fin_actual;
+            fin_actual = auxiliar;
+            auxiliar = nivel_referencia;
+            nivel_referencia = nivel_actual;
+            nivel_actual = auxiliar;
+        }
+
+        return Arrays.copyOf(simbolos, cantidad_simbolos);
+    }
+
+    /**
+     * Método privado que calcula las longitudes del código de un alfabeto, o un arreglo vacío si ningún
+     * símbolo aparece.
+     * @param conteos Cantidad de ocurrencias de cada símbolo.
+     * @param constructor Constructor compartido por los dos códigos del archivo.
+     * @return Arreglo indexado por símbolo con la longitud de su código.
+     */
+    private static byte[] getLongitudes(int[] conteos, ConstructorHuffman constructor)
+    {
+        for (int conteo : conteos)
+            if (conteo > 0)
+                return constructor.construirLimitado(conteos, CodificadorHuffmanNuevo.LONGITUD_ACOTADA);
+
+        return new byte[0];
+    }
+
+    /**
+     * Método privado que genera la tabla de decodificación de un código de la cabecera.
+     * @param longitudes Longitud del código de cada símbolo.
+     * @return Tabla de decodificación, o null si el código no se utiliza.
+     */
+    private static TablaDecodificacion crearTabla(byte[] longitudes)
+    {
+        return longitudes.length == 0 ? null : new TablaDecodificacion(HuffmanCanonico.asignarCodigos(longitudes), longitudes);
+    }
+}
@@ -0,0 +1,178 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Clase que define un compresor híbrido que combina Run-Length con codificación de entropía. La imagen se
+ * divide en corridas igual que en CodificadorRunLength, y cada corrida se representa con un par
+ * (valor, longitud):
+ * - El valor se codifica con un código canónico de Huffman calculado sobre los valores de las corridas,
+ *   que se guarda en la cabecera.
+ * - La longitud se codifica con Golomb-Rice adaptativo: el parámetro k se recalcula después de cada
+ *   corrida a partir de la longitud media de las corridas recientes, de forma que codificador y
+ *   decodificador lo obtienen sin transmitirlo.
+ * Los pares se escriben uno detrás del otro, por lo que se decodifican en una única pasada.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CodificadorRunLengthHuffman {
+
+    private static final int CANTIDAD_SIMBOLOS = 256;
+
+    // Cantidad máxima de unos del prefijo unario; por encima se escribe la longitud completa en 32 bits
+    private static final int LIMITE_UNARIO = 24;
+
+    // Estado inicial del promedio y cantidad de corridas a partir de la cual se reduce a la mitad
+    private static final int SUMA_INICIAL = 4;
+    private static final int REINICIO = 64;
+
+    /**
+     * Método estático que comprime una imagen en escala de grises a un archivo binario en modo Run-Length
+     * híbrido.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param umbral Diferencia máxima tolerada dentro de una corrida; 0 para comprimir sin pérdida.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, int umbral, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        int[] conteos = new int[CANTIDAD_SIMBOLOS];
+        for (int i = 0; i < pixeles.length; i = CodificadorRunLength.getFinCorrida(pixeles, i, umbral))
+            conteos[pixeles[i]]++;
+
+        byte[] longitudes = ConstructorHuffman.getLongitudes(conteos);
+        int[] codigos = HuffmanCanonico.asignarCodigos(longitudes);
+
+        try (FileChannel canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new CabeceraHuff(CabeceraHuff.MODO_RUNLENGTH, ancho_img, alto_img, longitudes).escribir(canal);
+
+            EscritorBits escritor = new EscritorBits(canal);
+            int suma = SUMA_INICIAL, cantidad = 1;
+
+            int i = 0;
+            while (i < pixeles.length) {
+                int j = CodificadorRunLength.getFinCorrida(pixeles, i, umbral);
+                int valor = pixeles[i];
+                escritor.escribirBits(codigos[valor], longitudes[valor]);
+
+                int k = getParametro(suma, cantidad);
+                escribirRice(escritor, j - i - 1, k);
+
+                suma += j - i;
+                if (++cantidad == REINICIO) {
+                    suma >>>= 1;
+                    cantidad >>>= 1;
+                }
+                i = j;
+            }
+
+            escritor.vaciar();
+        }
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo Run-Length híbrido. Cada corrida se
+     * escribe directamente sobre el raster de la imagen resultante.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que las corridas no coincidan con el tamaño de la imagen o los datos estén truncados.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera) throws IOException
+    {
+        BufferedImage img = new BufferedImage(cabecera.getAncho(), cabecera.getAlto(), BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        byte[] longitudes = cabecera.getLongitudes();
+        TablaDecodificacion tabla = new TablaDecodificacion(HuffmanCanonico.asignarCodigos(longitudes), longitudes);
+        LectorBits lector = new LectorBits(datos);
+        int suma = SUMA_INICIAL, cantidad = 1;
+
+        int i = 0;
+        while (i < pixeles.length) {
+            int valor = tabla.decodificarSimbolo(lector);
+            int longitud = leerRice(lector, getParametro(suma, cantidad)) + 1;
+
+            if (longitud <= 0 || longitud > pixeles.length - i)
+                throw new IOException("Las corridas exceden el tamaño de la imagen");
+
+            Arrays.fill(pixeles, i, i + longitud, 0xFF000000 | (valor * 0x010101));
+            i += longitud;
+
+            suma += longitud;
+            if (++cantidad == REINICIO) {
+                suma >>>= 1;
+                cantidad >>>= 1;
+            }
+        }
+        lector.verificarFin();
+
+        return img;
+    }
+
+    /**
+     * Método estático que calcula el parámetro de Golomb-Rice, el menor k tal que 2^k por la cantidad de
+     * corridas alcanza a la suma de sus longitudes.
+     * @param suma Suma de las longitudes de las corridas recientes.
+     * @param cantidad Cantidad de corridas recientes.
+     * @return Parámetro k.
+     */
+    static int getParametro(int suma, int cantidad)
+    {
+        int k = 0;
+        while ((cantidad << k) < suma)
+            k++;
+        return k;
+    }
+
+    /**
+     * Método estático que escribe un valor con código Golomb-Rice de parámetro k: el cociente v / 2^k en
+     * unario (unos terminados en cero) seguido de los k bits menos significativos. Si el cociente alcanza
+     * LIMITE_UNARIO, se escriben LIMITE_UNARIO unos y luego el valor completo en 32 bits.
+     * @param escritor Escritor sobre el cuál se vuelcan los bits.
+     * @param valor Valor a escribir, no negativo.
+     * @param k Parámetro de Golomb-Rice.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    static void escribirRice(EscritorBits escritor, int valor, int k) throws IOException
+    {
+        int cociente = valor >>> k;
+
+        if (cociente >= LIMITE_UNARIO) {
+            escritor.escribirBits((1 << LIMITE_UNARIO) - 1, LIMITE_UNARIO);
+            escritor.escribirBits(valor, 32);
+            return;
+        }
+
+        escritor.escribirBits(((1 << cociente) - 1) << 1, cociente + 1);
+        if (k > 0)
+            escritor.escribirBits(valor & ((1 << k) - 1), k);
+    }
+
+    /**
+     * Método estático que lee un valor escrito con escribirRice().
+     * @param lector Fuente de bits.
+     * @param k Parámetro de Golomb-Rice.
+     * @return Valor leído.
+     */
+    static int leerRice(LectorBits lector, int k)
+    {
+        int cociente = 0;
+        while (cociente < LIMITE_UNARIO && lector.leerBit() == 1)
+            cociente++;
+
+        if (cociente == LIMITE_UNARIO)
+            return lector.leerBits(32);
+
+        return k > 0 ? (cociente << k) | lector.leerBits(k) : cociente;
+    }
+}
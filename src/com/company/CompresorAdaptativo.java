@@ -0,0 +1,120 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Clase que permite comprimir una imagen en escala de grises en una sola pasada, a medida que se van
+ * obteniendo sus píxeles, sin necesidad de un archivo de distribución ni de tener la imagen completa en
+ * memoria. Los píxeles se codifican con un ModeloAdaptativo, por lo que el archivo generado sólo lleva
+ * en la cabecera las dimensiones de la imagen.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class CompresorAdaptativo implements Closeable {
+
+    private static final int CANTIDAD_SIMBOLOS = 256;
+
+    private final FileChannel canal;
+    private final EscritorBits escritor;
+    private final ModeloAdaptativo modelo = new ModeloAdaptativo(CANTIDAD_SIMBOLOS, false);
+
+    private final long total_pixeles;
+    private long pixeles_escritos = 0;
+
+    /**
+     * Genera el archivo comprimido y escribe su cabecera. Luego se deben agregar los píxeles con
+     * agregarPixeles() y finalmente cerrar el compresor.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public CompresorAdaptativo(String nombre_archivo, int ancho_img, int alto_img) throws IOException {
+        this.canal = FileChannel.open(new File(nombre_archivo + ".huff").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.total_pixeles = (long) ancho_img * alto_img;
+
+        new CabeceraHuff(CabeceraHuff.MODO_ADAPTATIVO, ancho_img, alto_img, new byte[0]).escribir(canal);
+        this.escritor = new EscritorBits(canal);
+    }
+
+    /**
+     * Codifica los niveles de gris de una porción de la imagen, por ejemplo una fila recién leída.
+     * Las porciones deben agregarse en orden, de izquierda a derecha y de arriba a abajo.
+     * @param pixeles Arreglo con los niveles de gris.
+     * @param desde Posición del primer píxel a codificar.
+     * @param hasta Posición siguiente al último píxel a codificar.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public void agregarPixeles(int[] pixeles, int desde, int hasta) throws IOException
+    {
+        if (pixeles_escritos + (hasta - desde) > total_pixeles)
+            throw new IllegalStateException("Se agregaron más píxeles que los de la imagen");
+
+        for (int i = desde; i < hasta; i++)
+            modelo.codificar(pixeles[i], escritor);
+
+        pixeles_escritos += hasta - desde;
+    }
+
+    /**
+     * Vuelca los bits pendientes y cierra el archivo.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida, o falten píxeles.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            escritor.vaciar();
+        } finally {
+            canal.close();
+        }
+
+        if (pixeles_escritos != total_pixeles)
+            throw new IOException("Se cerró el archivo con " + pixeles_escritos + " de " + total_pixeles + " píxeles");
+    }
+
+    /**
+     * Método estático que comprime una imagen completa en modo adaptativo.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param nombre_archivo Nombre deseado del archivo a generar (sin extensión).
+     * @param ancho_img Ancho de la imagen.
+     * @param alto_img Alto de la imagen.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static void comprimir(int[] pixeles, String nombre_archivo, int ancho_img, int alto_img) throws IOException
+    {
+        try (CompresorAdaptativo compresor = new CompresorAdaptativo(nombre_archivo, ancho_img, alto_img)) {
+            compresor.agregarPixeles(pixeles, 0, pixeles.length);
+        }
+    }
+
+    /**
+     * Método estático que decodifica los datos de un archivo en modo adaptativo, reconstruyendo el modelo
+     * a medida que se decodifican los píxeles.
+     * @param datos Buffer posicionado al final de la cabecera.
+     * @param cabecera Cabecera del archivo.
+     * @return Imagen descomprimida.
+     * @throws IOException En caso de que los datos estén truncados.
+     */
+    public static BufferedImage descomprimir(ByteBuffer datos, CabeceraHuff cabecera) throws IOException
+    {
+        BufferedImage img = new BufferedImage(cabecera.getAncho(), cabecera.getAlto(), BufferedImage.TYPE_INT_RGB);
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        LectorBits lector = new LectorBits(datos);
+        new ModeloAdaptativo(CANTIDAD_SIMBOLOS, true).decodificar(lector, pixeles, 0, pixeles.length);
+        lector.verificarFin();
+
+        for (int i = 0; i < pixeles.length; i++)
+            pixeles[i] = 0xFF000000 | (pixeles[i] * 0x010101);
+
+        return img;
+    }
+}
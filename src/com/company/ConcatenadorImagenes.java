@@ -3,34 +3,38 @@ package com.company;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Define a la clase que contiene las tres imágenes fuente, así como la imagen panorámica generada y la imagen
- * panorámica comprimida por pérdida mediante la implementación del algoritmo RUN-LENGTH.
+ * Define a la clase que contiene las imágenes fuente (tres desde la interfaz, o cualquier cantidad agregada con
+ * agregarArchivo()), así como la imagen panorámica generada y la imagen panorámica comprimida por pérdida
+ * mediante la implementación del algoritmo RUN-LENGTH.
  * @author Horquin Enzo, Serrano Francisco
  */
 public class ConcatenadorImagenes {
 
-    private BufferedImage img1 = null;
-    private BufferedImage img2 = null;
-    private BufferedImage img3 = null;
+    private final List<BufferedImage> imagenes = new ArrayList<>();
 
     private int alto;
     private int ancho;
     private int size;
-    private int[] arr_final;
+    private int[] grises_final;
 
     private BufferedImage imgFinal = null;
     private BufferedImage imgFinalRunLength = null;
 
     private static final int CANTIDAD_COLUMNAS = 50;
 
+    private int maximo_columnas = CANTIDAD_COLUMNAS;
+    private int maximo_desplazamiento = 0;
+    private int niveles_piramide = 0;
+
     /**
-     * Retorna la imagen panorámica resultante de la concatenación de las tres imágenes fuente.
+     * Retorna la imagen panorámica resultante de la concatenación de las imágenes fuente.
      * @return Imagen panorámica resultante.
      */
     public BufferedImage getImgFinal() {
@@ -51,11 +55,7 @@ public class ConcatenadorImagenes {
      * @param archivo1 Archivo que representa la imagen en formato BMP.
      */
     public void setArchivo1(File archivo1) {
-        try {
-            this.img1 = ImageIO.read(archivo1);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        setImagen(0, archivo1);
     }
 
     /**
@@ -63,11 +63,7 @@ public class ConcatenadorImagenes {
      * @param archivo2 Archivo que representa la imagen en formato BMP.
      */
     public void setArchivo2(File archivo2) {
-        try {
-            this.img2 = ImageIO.read(archivo2);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        setImagen(1, archivo2);
     }
 
     /**
@@ -75,8 +71,63 @@ public class ConcatenadorImagenes {
      * @param archivo3 Archivo que representa la imagen en formato BMP.
      */
     public void setArchivo3(File archivo3) {
+        setImagen(2, archivo3);
+    }
+
+    /**
+     * Asigna el ancho máximo de solapamiento a buscar entre dos imágenes; por defecto es CANTIDAD_COLUMNAS.
+     * @param maximo_columnas Ancho máximo de solapamiento, en columnas.
+     */
+    public void setMaximoColumnas(int maximo_columnas) {
+        this.maximo_columnas = maximo_columnas;
+    }
+
+    /**
+     * Asigna el desplazamiento vertical máximo a buscar entre dos imágenes, para fotos tomadas a mano que no
+     * quedaron alineadas; por defecto es 0. La panorámica se recorta a las filas presentes en todas las imágenes.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, en cada sentido.
+     */
+    public void setMaximoDesplazamiento(int maximo_desplazamiento) {
+        this.maximo_desplazamiento = maximo_desplazamiento;
+    }
+
+    /**
+     * Asigna la cantidad de niveles de la pirámide de resoluciones con que se buscan los solapamientos; por
+     * defecto es 0, que busca en forma exhaustiva en la resolución original. Con imágenes grandes la búsqueda
+     * piramidal es mucho más rápida, aunque no garantiza encontrar el mismo solapamiento que la exhaustiva.
+     * @param niveles_piramide Cantidad máxima de reducciones a la mitad.
+     */
+    public void setNivelesPiramide(int niveles_piramide) {
+        this.niveles_piramide = niveles_piramide;
+    }
+
+    /**
+     * Agrega al concatenador una imagen fuente más, a continuación de las ya asignadas. El orden en que se
+     * agregan no importa, ya que concatenar() determina el orden de la panorámica.
+     * @param archivo Archivo que representa la imagen en formato BMP.
+     */
+    public void agregarArchivo(File archivo) {
+        setImagen(imagenes.size(), archivo);
+    }
+
+    /**
+     * Quita del concatenador todas las imágenes fuente.
+     */
+    public void limpiarArchivos() {
+        imagenes.clear();
+    }
+
+    /**
+     * Método privado que lee una imagen fuente y la ubica en la posición indicada.
+     * @param indice Posición de la imagen entre las fuentes.
+     * @param archivo Archivo que representa la imagen en formato BMP.
+     */
+    private void setImagen(int indice, File archivo) {
         try {
-            this.img3 = ImageIO.read(archivo3);
+            BufferedImage img = ImageIO.read(archivo);
+            while (imagenes.size() <= indice)
+                imagenes.add(null);
+            imagenes.set(indice, img);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -88,91 +139,113 @@ public class ConcatenadorImagenes {
      */
     public void generarComprimidoRunLength(int umbral){
 
-        Utils.runLength(Utils.convertirArregloRGBaGrises(arr_final),umbral,this.alto,this.ancho);
+        try {
+            CodificadorRunLength.comprimirBandas(grises_final, umbral,
+                    CodificadorRunLength.FILAS_POR_BANDA, "runlength", this.ancho, this.alto);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
     }
-    public void descomprimirRunLength(){
-        int[] arr_runlength = Utils.getArregloRunLength();
-
-        int[] arr_final2 = new int[arr_runlength.length];
-
-        for (int i = 0; i < arr_runlength.length; i++) {
-            arr_final2[i] = new Color(arr_runlength[i], arr_runlength[i], arr_runlength[i]).getRGB();
 
-        }
+    /**
+     * Calcula, sin generar archivos, el tamaño y el error de la compresión con pérdida de la imagen
+     * panorámica para cada uno de los umbrales indicados.
+     * @param umbrales Umbrales de pérdida a evaluar.
+     * @return Lista con un punto de la curva tasa-distorsión por umbral.
+     */
+    public List<PuntoDistorsion> evaluarUmbrales(int[] umbrales){
+        return BarridoUmbrales.evaluarBandas(grises_final, umbrales, this.ancho,
+                CodificadorRunLength.FILAS_POR_BANDA);
+    }
 
-        this.imgFinalRunLength = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
-        WritableRaster rasterRL = this.imgFinalRunLength.getRaster();
-        rasterRL.setDataElements(0,0,ancho,alto, arr_final2);
+    /**
+     * Descomprime el archivo generado por generarComprimidoRunLength() y vuelca la imagen resultante a
+     * foto_run_length.bmp.
+     */
+    public void descomprimirRunLength(){
 
         // Volcado de la imagen al archivo
         try {
+            this.imgFinalRunLength = CodificadorRunLength.descomprimir(new File("runlength.rle"));
             ImageIO.write(this.imgFinalRunLength, "bmp", new File("foto_run_length.bmp"));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
     /**
-     * Procede a unir las tres imágenes fuente y volcar a un archivo el resultado.
+     * Procede a unir las imágenes fuente y volcar a un archivo el resultado. Las imágenes se ordenan con
+     * OrdenadorPanoramica, que calcula una única vez el solapamiento de cada par (con correlación cruzada
+     * mediante la transformada de Fourier si se buscan desplazamientos verticales), y cada una se recorta según
+     * su solapamiento con la imagen ubicada a su derecha; la última se conserva entera. Si hay desplazamientos
+     * verticales, las imágenes se alinean y se conservan sólo las filas presentes en todas.
+     * @throws IllegalStateException Si no se cargó ninguna imagen, o si los desplazamientos verticales
+     *                               acumulados no dejan filas presentes en todas las imágenes.
      */
     public void concatenar()
     {
-        // Genero las matrices a partir de las imágenes
-        int[][] mat_imagen_1 = Utils.generarMatrizRGB(img1, false);
-        int[][] mat_imagen_2 = Utils.generarMatrizRGB(img2, false);
-        int[][] mat_imagen_3 = Utils.generarMatrizRGB(img3, false);
-
-        // Convierto las matrices RGB a escala de grises para poder ordenarlas correctamente
-        int[][] mat_imagen_1_grises = Utils.convertirMatrizRGBaGrises(mat_imagen_1);
-        int[][] mat_imagen_2_grises = Utils.convertirMatrizRGBaGrises(mat_imagen_2);
-        int[][] mat_imagen_3_grises = Utils.convertirMatrizRGBaGrises(mat_imagen_3);
-
-        // Dispongo las matrices en el orden correspondiente para luego ser concatenadas
-        List<int[][]> result = Utils.unir(mat_imagen_1_grises, mat_imagen_2_grises, mat_imagen_3_grises);
-
-        // Reacomodo el orden de las matrices, en orden numérico para luego poder unirlas
-        mat_imagen_1 = Utils.convertirMatrizGrisesRGB(result.get(2));
-        mat_imagen_2 = Utils.convertirMatrizGrisesRGB(result.get(1));
-        mat_imagen_3 = Utils.convertirMatrizGrisesRGB(result.get(0));
-
-        // Idem pero para las matrices de grises, para así poder computar la correlación correctamente
-        mat_imagen_1_grises = Utils.convertirMatrizRGBaGrises(mat_imagen_1);
-        mat_imagen_2_grises = Utils.convertirMatrizRGBaGrises(mat_imagen_2);
-        mat_imagen_3_grises = Utils.convertirMatrizRGBaGrises(mat_imagen_3);
-
-        // Computo las columnas en donde se dan las coincidencias entre las imágenes
-
-        int columnaCoincidencia_imagen1_2 = Utils.getColumnasCoincidentes(mat_imagen_1_grises, mat_imagen_2_grises, CANTIDAD_COLUMNAS, true);
-
-        int columnaCoincidencia_imagen2_3 = Utils.getColumnasCoincidentes(mat_imagen_2_grises, mat_imagen_3_grises, CANTIDAD_COLUMNAS, true);
+        // Genero las vistas en escala de grises a partir de las imágenes, para poder ordenarlas correctamente
+        List<VistaImagen> vistas_grises = new ArrayList<>();
+        for (BufferedImage img : imagenes)
+            if (img != null)
+                vistas_grises.add(Utils.generarVista(img, true));
+
+        if (vistas_grises.isEmpty())
+            throw new IllegalStateException("No se cargaron imágenes para concatenar");
+
+        // Dispongo las vistas en el orden correspondiente para luego ser concatenadas
+        OrdenadorPanoramica ordenador = new OrdenadorPanoramica(vistas_grises, maximo_columnas, maximo_desplazamiento,
+                niveles_piramide, ForkJoinPool.commonPool());
+        int[] orden = ordenador.getOrden();
+
+        // Computo el ancho de cada imagen una vez recortada la redundancia con la siguiente, y la fila de la
+        // panorámica en la que queda su primera fila
+        int cantidad = orden.length;
+        int[] anchos = new int[cantidad];
+        int[] desplazamientos = new int[cantidad];
+        int ancho = 0;
+        for (int k = 0; k < cantidad; k++) {
+            anchos[k] = vistas_grises.get(orden[k]).getAncho();
+            if (k < cantidad - 1) {
+                anchos[k] -= ordenador.getColumnasCoincidentes(orden[k], orden[k + 1]);
+                desplazamientos[k + 1] = desplazamientos[k] + ordenador.getDesplazamientoVertical(orden[k], orden[k + 1]);
+            }
+            ancho += anchos[k];
+        }
 
-        // Recorto la primer y segunda matriz para eliminar redundancias en la concatenación
-        int[] arr_imagen_1_recortada = Utils.getSubmatriz(mat_imagen_1, mat_imagen_1[0].length - columnaCoincidencia_imagen1_2, true);
-        int[][] mat_imagen_1_recortada = Utils.expandirArregloMatriz(arr_imagen_1_recortada, mat_imagen_1[0].length - columnaCoincidencia_imagen1_2, mat_imagen_1.length);
-        int[] arr_imagen_2_recortada = Utils.getSubmatriz(mat_imagen_2, mat_imagen_2[0].length - columnaCoincidencia_imagen2_3, true);
-        int[][] mat_imagen_2_recortada = Utils.expandirArregloMatriz(arr_imagen_2_recortada, mat_imagen_2[0].length - columnaCoincidencia_imagen2_3, mat_imagen_2.length);
+        // Conservo sólo las filas presentes en todas las imágenes
+        int superior = Integer.MIN_VALUE;
+        int inferior = Integer.MAX_VALUE;
+        for (int k = 0; k < cantidad; k++) {
+            superior = Math.max(superior, desplazamientos[k]);
+            inferior = Math.min(inferior, desplazamientos[k] + vistas_grises.get(orden[k]).getAlto());
+        }
+        int alto = inferior - superior;
 
-        // Efectúo concatenación
-        int[][] mat_final = Utils.juntarMatrices(mat_imagen_1_recortada, mat_imagen_2_recortada, mat_imagen_3);
+        // Los desplazamientos de cada par se acumulan, por lo que varias imágenes corridas en el mismo sentido
+        // pueden no compartir ninguna fila
+        if (alto <= 0)
+            throw new IllegalStateException("Las imágenes no tienen filas en común con los desplazamientos verticales encontrados; "
+                    + "reducir el desplazamiento máximo");
 
-        // Convierto la matriz en arreglo, para poder cargarla en el raster
-        int[] arr_final = Utils.serializarMatriz(mat_final);
+        // Recorto cada imagen sin copiar píxeles y efectúo la concatenación fila por fila
+        List<VistaImagen> recortes = new ArrayList<>();
+        for (int k = 0; k < cantidad; k++)
+            recortes.add(vistas_grises.get(orden[k]).recortar(0, superior - desplazamientos[k], anchos[k], alto));
 
-        // Dimensiones de la imagen final
-        int ancho = mat_final[0].length;
-        int alto = mat_final.length;
+        int[] grises_final = new int[ancho * alto];
+        VistaImagen panoramica = new VistaImagen(grises_final, ancho, alto);
+        Utils.juntarMatrices(recortes, panoramica);
 
         this.alto = alto;
         this.ancho = ancho;
-        this.size = arr_final.length;
-        this.arr_final = arr_final;
+        this.size = grises_final.length;
+        this.grises_final = grises_final;
 
-        // Cargo en memoria la imagen donde se escribirá la panorámica
+        // Cargo en memoria la imagen donde se escribirá la panorámica, y convierto los grises a RGB directamente
+        // sobre su raster
         this.imgFinal = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
-
-        // Raster donde se vuelca el contenido del arreglo de píxeles
-        WritableRaster raster = this.imgFinal.getRaster();
-        raster.setDataElements(0, 0, ancho, alto, arr_final);
+        Utils.convertirMatrizGrisesRGB(panoramica, VistaImagen.deRaster(this.imgFinal));
 
         // Volcado de la imagen al archivo
         try {
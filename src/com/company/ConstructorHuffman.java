@@ -0,0 +1,242 @@
+package com.company;
+
+import java.util.Arrays;
+
+/**
+ * Clase que construye códigos de Huffman a partir de la cantidad de ocurrencias de cada símbolo, sin
+ * generar objetos NodoHoja ni NodoInterno.
+ * Los símbolos se ordenan una sola vez por cantidad de ocurrencias y luego se combinan con el método de
+ * las dos colas: como los nodos internos se generan en orden creciente de peso, alcanza con comparar el
+ * primer elemento de cada cola para obtener siempre los dos de menor peso, en tiempo lineal.
+ * El árbol se almacena en arreglos paralelos (peso y padre de cada nodo) que se reservan una sola vez, de
+ * manera que un mismo constructor puede reutilizarse para cada imagen o porción de imagen. Las listas del
+ * package-merge, mucho más grandes, se reservan recién la primera vez que un código excede el límite.
+ * Al trabajar con enteros, los empates se resuelven siempre de la misma forma (primero el símbolo de
+ * menor valor y, a igual peso, primero las hojas), por lo que el resultado es reproducible.
+ * También permite construir códigos de longitud acotada mediante el algoritmo package-merge, para las
+ * distribuciones muy sesgadas en las que Huffman generaría códigos demasiado largos.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class ConstructorHuffman {
+
+    private static final int BITS_SIMBOLO = 20;
+    private static final long MASCARA_SIMBOLO = (1L << BITS_SIMBOLO) - 1;
+
+    // Hojas ordenadas por peso: (conteo << BITS_SIMBOLO) | simbolo
+    private final long[] hojas;
+
+    // Nodos internos en orden de creación. Al finalizar, padre[] pasa a contener la profundidad de cada uno.
+    private final long[] peso;
+    private final int[] padre;
+
+    // Padre de cada hoja, en el mismo orden que hojas[]
+    private final int[] padre_hoja;
+
+    // Listas de cada nivel del package-merge, una detrás de la otra, cada una de hasta 2n elementos.
+    // paquete[] indica si el elemento es un paquete (true) o una hoja (false). Se reservan al usarse.
+    private long[] peso_nivel;
+    private boolean[] paquete;
+    private final int[] tamanio_nivel = new int[HuffmanCanonico.MAXIMA_LONGITUD + 1];
+
+    /**
+     * Genera un constructor para alfabetos de hasta la cantidad de símbolos indicada.
+     * @param cantidad_simbolos Tamaño del alfabeto.
+     */
+    public ConstructorHuffman(int cantidad_simbolos) {
+        hojas = new long[cantidad_simbolos];
+        peso = new long[cantidad_simbolos];
+        padre = new int[cantidad_simbolos];
+        padre_hoja = new int[cantidad_simbolos];
+    }
+
+    /**
+     * Calcula la longitud del código de Huffman de cada símbolo.
+     * Si algún código supera HuffmanCanonico.MAXIMA_LONGITUD bits, se recalculan con ese límite.
+     * @param conteos Cantidad de ocurrencias de cada símbolo, indexada por símbolo.
+     * @param longitudes Arreglo donde se deposita la longitud del código de cada símbolo (0 si no aparece).
+     */
+    public void construir(int[] conteos, byte[] longitudes)
+    {
+        construirLimitado(conteos, HuffmanCanonico.MAXIMA_LONGITUD, longitudes);
+    }
+
+    /**
+     * Calcula la longitud del código de cada símbolo, de manera que ninguna supere la longitud máxima
+     * indicada. Primero se construye el código de Huffman y, sólo si éste excede el límite, se recalcula
+     * con el algoritmo package-merge, que obtiene el código óptimo entre los que respetan el límite.
+     * @param conteos Cantidad de ocurrencias de cada símbolo, indexada por símbolo.
+     * @param maxima_longitud Longitud máxima permitida, entre 1 y HuffmanCanonico.MAXIMA_LONGITUD.
+     * @param longitudes Arreglo donde se deposita la longitud del código de cada símbolo (0 si no aparece).
+     * @throws IllegalArgumentException Si la cantidad de símbolos presentes no entra en la longitud máxima.
+     */
+    public void construirLimitado(int[] conteos, int maxima_longitud, byte[] longitudes)
+    {
+        Arrays.fill(longitudes, (byte) 0);
+
+        int n = 0;
+        for (int simbolo = 0; simbolo < conteos.length; simbolo++)
+            if (conteos[simbolo] > 0)
+                hojas[n++] = ((long) conteos[simbolo] << BITS_SIMBOLO) | simbolo;
+
+        if (n == 0)
+            return;
+
+        if (n == 1) {
+            longitudes[(int) (hojas[0] & MASCARA_SIMBOLO)] = 1;
+            return;
+        }
+
+        Arrays.sort(hojas, 0, n);
+
+        // Método de las dos colas: i recorre las hojas, j los nodos internos ya generados
+        int i = 0, j = 0;
+        for (int nuevo = 0; nuevo < n - 1; nuevo++) {
+            long suma = 0;
+
+            for (int k = 0; k < 2; k++) {
+                if (j >= nuevo || (i < n && (hojas[i] >>> BITS_SIMBOLO) <= peso[j])) {
+                    suma += hojas[i] >>> BITS_SIMBOLO;
+                    padre_hoja[i++] = nuevo;
+                } else {
+                    suma += peso[j];
+                    padre[j++] = nuevo;
+                }
+            }
+
+            peso[nuevo] = suma;
+        }
+
+        // La raíz es el último nodo generado; se recorre hacia atrás para obtener las profundidades
+        int raiz = n - 2;
+        padre[raiz] = 0;
+        for (int k = raiz - 1; k >= 0; k--)
+            padre[k] = padre[padre[k]] + 1;
+
+        int max_longitud = 0;
+        for (int k = 0; k < n; k++)
+            max_longitud = Math.max(max_longitud, padre[padre_hoja[k]] + 1);
+
+        if (max_longitud > maxima_longitud) {
+            packageMerge(n, maxima_longitud, longitudes);
+            return;
+        }
+
+        for (int k = 0; k < n; k++)
+            longitudes[(int) (hojas[k] & MASCARA_SIMBOLO)] = (byte) (padre[padre_hoja[k]] + 1);
+    }
+
+    /**
+     * Método privado que implementa el algoritmo package-merge sobre las n hojas ya ordenadas.
+     * Se arma una lista por nivel, desde el más profundo: la del último nivel contiene sólo las hojas, y
+     * la de cada nivel superior resulta de agrupar de a pares (empaquetar) los elementos de la lista
+     * inferior e intercalarlos, por peso, con las hojas. De la lista del primer nivel se toman los 2n - 2
+     * elementos de menor peso, y la longitud de cada símbolo es la cantidad de veces que su hoja aparece
+     * entre los elementos tomados, contando las que quedan dentro de los paquetes.
+     * @param n Cantidad de hojas.
+     * @param maxima_longitud Longitud máxima permitida.
+     * @param longitudes Arreglo donde se deposita la longitud del código de cada símbolo.
+     */
+    private void packageMerge(int n, int maxima_longitud, byte[] longitudes)
+    {
+        if (maxima_longitud > HuffmanCanonico.MAXIMA_LONGITUD || (maxima_longitud < 31 && n > (1 << maxima_longitud)))
+            throw new IllegalArgumentException("No es posible codificar " + n + " símbolos con a lo sumo "
+                    + maxima_longitud + " bits");
+
+        int ancho_nivel = 2 * hojas.length;
+
+        if (peso_nivel == null) {
+            peso_nivel = new long[(HuffmanCanonico.MAXIMA_LONGITUD + 1) * ancho_nivel];
+            paquete = new boolean[peso_nivel.length];
+        }
+
+        // Nivel más profundo: sólo las hojas
+        int profundo = maxima_longitud * ancho_nivel;
+        for (int k = 0; k < n; k++) {
+            peso_nivel[profundo + k] = hojas[k] >>> BITS_SIMBOLO;
+            paquete[profundo + k] = false;
+        }
+        tamanio_nivel[maxima_longitud] = n;
+
+        for (int nivel = maxima_longitud - 1; nivel >= 1; nivel--) {
+            int inferior = nivel * ancho_nivel + ancho_nivel;
+            int actual = nivel * ancho_nivel;
+            int paquetes = tamanio_nivel[nivel + 1] / 2;
+            int h = 0, p = 0, k = 0;
+
+            // Intercalado por peso; a igual peso, primero las hojas
+            while (h < n || p < paquetes) {
+                long peso_paquete = p < paquetes ? peso_nivel[inferior + 2 * p] + peso_nivel[inferior + 2 * p + 1] : Long.MAX_VALUE;
+
+                if (h < n && (hojas[h] >>> BITS_SIMBOLO) <= peso_paquete) {
+                    peso_nivel[actual + k] = hojas[h++] >>> BITS_SIMBOLO;
+                    paquete[actual + k] = false;
+                } else {
+                    peso_nivel[actual + k] = peso_paquete;
+                    paquete[actual + k] = true;
+                    p++;
+                }
+                k++;
+            }
+
+            tamanio_nivel[nivel] = k;
+        }
+
+        // Se recorren los niveles de arriba hacia abajo contando las hojas tomadas en cada uno
+        int tomados = 2 * n - 2;
+        for (int nivel = 1; nivel <= maxima_longitud && tomados > 0; nivel++) {
+            int inicio = nivel * ancho_nivel;
+            int hojas_tomadas = 0;
+
+            for (int k = 0; k < tomados; k++)
+                if (!paquete[inicio + k])
+                    hojas_tomadas++;
+
+            // Las hojas de cada lista aparecen en orden, por lo que las tomadas son siempre las primeras
+            for (int k = 0; k < hojas_tomadas; k++)
+                longitudes[(int) (hojas[k] & MASCARA_SIMBOLO)]++;
+
+            tomados = 2 * (tomados - hojas_tomadas);
+        }
+    }
+
+    /**
+     * Calcula la longitud del código de cada símbolo, acotada a la longitud máxima indicada, en un arreglo
+     * nuevo del tamaño del alfabeto recibido.
+     * @param conteos Cantidad de ocurrencias de cada símbolo, indexada por símbolo; a lo sumo tantos
+     *                símbolos como los indicados al generar el constructor.
+     * @param maxima_longitud Longitud máxima permitida.
+     * @return Arreglo indexado por símbolo con la longitud de su código.
+     */
+    public byte[] construirLimitado(int[] conteos, int maxima_longitud)
+    {
+        byte[] longitudes = new byte[conteos.length];
+        construirLimitado(conteos, maxima_longitud, longitudes);
+        return longitudes;
+    }
+
+    /**
+     * Método estático que calcula las longitudes de los códigos de Huffman de un alfabeto, utilizando un
+     * constructor descartable. Para construir varios códigos seguidos conviene reutilizar una instancia.
+     * @param conteos Cantidad de ocurrencias de cada símbolo, indexada por símbolo.
+     * @return Arreglo indexado por símbolo con la longitud de su código.
+     */
+    public static byte[] getLongitudes(int[] conteos)
+    {
+        byte[] longitudes = new byte[conteos.length];
+        new ConstructorHuffman(conteos.length).construir(conteos, longitudes);
+        return longitudes;
+    }
+
+    /**
+     * Método estático que calcula las longitudes de los códigos de un alfabeto, acotadas a la longitud
+     * máxima indicada, utilizando un constructor descartable. Para construir varios códigos seguidos
+     * conviene reutilizar una instancia.
+     * @param conteos Cantidad de ocurrencias de cada símbolo, indexada por símbolo.
+     * @param maxima_longitud Longitud máxima permitida.
+     * @return Arreglo indexado por símbolo con la longitud de su código.
+     */
+    public static byte[] getLongitudesLimitadas(int[] conteos, int maxima_longitud)
+    {
+        return new ConstructorHuffman(conteos.length).construirLimitado(conteos, maxima_longitud);
+    }
+}
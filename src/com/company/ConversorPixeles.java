@@ -0,0 +1,235 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Clase que reúne las conversiones de píxeles entre imágenes, valores RGB y niveles de gris. Los canales se
+ * extraen y empaquetan con operaciones de bits, sin crear un objeto Color por píxel, y todos los métodos
+ * escriben en un arreglo provisto por quien llama.
+ *
+ * Para los tipos de imagen habituales (RGB en enteros, BGR en bytes y paleta de 8 bits) los píxeles se
+ * leen directamente del arreglo que respalda al raster; para el resto se recurre a BufferedImage.getRGB()
+ * de a una fila por vez. Como en el resto del proyecto, el nivel de gris de un píxel es su canal rojo.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class ConversorPixeles {
+
+    private static final int OPACO = 0xFF000000;
+
+    /**
+     * Método estático que convierte valores RGB a niveles de gris. Ambos arreglos pueden ser el mismo.
+     * @param rgb Valores RGB fuente.
+     * @param grises Arreglo destino, de al menos el mismo tamaño.
+     */
+    public static void rgbAGrises(int[] rgb, int[] grises)
+    {
+        rgbAGrises(rgb, 0, grises, 0, rgb.length);
+    }
+
+    /**
+     * Método estático que convierte un tramo de valores RGB a niveles de gris.
+     * @param rgb Valores RGB fuente.
+     * @param desde Posición del primer valor fuente.
+     * @param grises Arreglo destino.
+     * @param destino Posición del destino en la que se escribe el primer valor.
+     * @param cantidad Cantidad de valores a convertir.
+     */
+    public static void rgbAGrises(int[] rgb, int desde, int[] grises, int destino, int cantidad)
+    {
+        for (int i = 0; i < cantidad; i++)
+            grises[destino + i] = (rgb[desde + i] >>> 16) & 0xFF;
+    }
+
+    /**
+     * Método estático que convierte niveles de gris a valores RGB opacos. Ambos arreglos pueden ser el mismo.
+     * @param grises Niveles de gris fuente.
+     * @param rgb Arreglo destino, de al menos el mismo tamaño.
+     */
+    public static void grisesARGB(int[] grises, int[] rgb)
+    {
+        grisesARGB(grises, 0, rgb, 0, grises.length);
+    }
+
+    /**
+     * Método estático que convierte un tramo de niveles de gris a valores RGB opacos.
+     * @param grises Niveles de gris fuente.
+     * @param desde Posición del primer valor fuente.
+     * @param rgb Arreglo destino.
+     * @param destino Posición del destino en la que se escribe el primer valor.
+     * @param cantidad Cantidad de valores a convertir.
+     */
+    public static void grisesARGB(int[] grises, int desde, int[] rgb, int destino, int cantidad)
+    {
+        for (int i = 0; i < cantidad; i++)
+            rgb[destino + i] = OPACO | (grises[desde + i] * 0x010101);
+    }
+
+    /**
+     * Método estático que obtiene los niveles de gris de una imagen, de izquierda a derecha y de arriba a abajo.
+     * @param img Imagen fuente.
+     * @param destino Arreglo destino de al menos ancho x alto elementos, o null para reservar uno nuevo.
+     * @return Arreglo destino con los niveles de gris.
+     */
+    public static int[] getGrises(BufferedImage img, int[] destino)
+    {
+        int ancho = img.getWidth();
+        int cantidad = ancho * img.getHeight();
+        destino = getDestino(destino, cantidad);
+
+        WritableRaster raster = img.getRaster();
+        if (esCompacto(raster)) {
+            DataBuffer buffer = raster.getDataBuffer();
+
+            switch (img.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB: {
+                    int[] datos = ((DataBufferInt) buffer).getData();
+                    for (int i = 0; i < cantidad; i++)
+                        destino[i] = (datos[i] >>> 16) & 0xFF;
+                    return destino;
+                }
+                case BufferedImage.TYPE_INT_BGR: {
+                    int[] datos = ((DataBufferInt) buffer).getData();
+                    for (int i = 0; i < cantidad; i++)
+                        destino[i] = datos[i] & 0xFF;
+                    return destino;
+                }
+                case BufferedImage.TYPE_3BYTE_BGR: {
+                    byte[] datos = ((DataBufferByte) buffer).getData();
+                    for (int i = 0, j = 2; i < cantidad; i++, j += 3)
+                        destino[i] = datos[j] & 0xFF;
+                    return destino;
+                }
+                case BufferedImage.TYPE_4BYTE_ABGR: {
+                    byte[] datos = ((DataBufferByte) buffer).getData();
+                    for (int i = 0, j = 3; i < cantidad; i++, j += 4)
+                        destino[i] = datos[j] & 0xFF;
+                    return destino;
+                }
+                case BufferedImage.TYPE_BYTE_INDEXED: {
+                    int[] paleta = getPaleta((IndexColorModel) img.getColorModel());
+                    byte[] datos = ((DataBufferByte) buffer).getData();
+                    for (int i = 0; i < cantidad; i++)
+                        destino[i] = (paleta[datos[i] & 0xFF] >>> 16) & 0xFF;
+                    return destino;
+                }
+            }
+        }
+
+        int[] fila = new int[ancho];
+        for (int y = 0, inicio = 0; inicio < cantidad; y++, inicio += ancho) {
+            img.getRGB(0, y, ancho, 1, fila, 0, ancho);
+            for (int x = 0; x < ancho; x++)
+                destino[inicio + x] = (fila[x] >>> 16) & 0xFF;
+        }
+
+        return destino;
+    }
+
+    /**
+     * Método estático que obtiene los valores RGB de una imagen, de izquierda a derecha y de arriba a abajo,
+     * con el mismo resultado que BufferedImage.getRGB().
+     * @param img Imagen fuente.
+     * @param destino Arreglo destino de al menos ancho x alto elementos, o null para reservar uno nuevo.
+     * @return Arreglo destino con los valores RGB en formato 0xAARRGGBB.
+     */
+    public static int[] getRGB(BufferedImage img, int[] destino)
+    {
+        int ancho = img.getWidth();
+        int alto = img.getHeight();
+        int cantidad = ancho * alto;
+        destino = getDestino(destino, cantidad);
+
+        WritableRaster raster = img.getRaster();
+        if (esCompacto(raster)) {
+            DataBuffer buffer = raster.getDataBuffer();
+
+            switch (img.getType()) {
+                case BufferedImage.TYPE_INT_RGB: {
+                    int[] datos = ((DataBufferInt) buffer).getData();
+                    for (int i = 0; i < cantidad; i++)
+                        destino[i] = OPACO | datos[i];
+                    return destino;
+                }
+                case BufferedImage.TYPE_INT_ARGB:
+                    System.arraycopy(((DataBufferInt) buffer).getData(), 0, destino, 0, cantidad);
+                    return destino;
+                case BufferedImage.TYPE_3BYTE_BGR: {
+                    byte[] datos = ((DataBufferByte) buffer).getData();
+                    for (int i = 0, j = 0; i < cantidad; i++, j += 3)
+                        destino[i] = OPACO | (datos[j + 2] & 0xFF) << 16 | (datos[j + 1] & 0xFF) << 8 | (datos[j] & 0xFF);
+                    return destino;
+                }
+                case BufferedImage.TYPE_BYTE_INDEXED: {
+                    int[] paleta = getPaleta((IndexColorModel) img.getColorModel());
+                    byte[] datos = ((DataBufferByte) buffer).getData();
+                    for (int i = 0; i < cantidad; i++)
+                        destino[i] = paleta[datos[i] & 0xFF];
+                    return destino;
+                }
+            }
+        }
+
+        return img.getRGB(0, 0, ancho, alto, destino, 0, ancho);
+    }
+
+    /**
+     * Método privado que valida el arreglo destino, o reserva uno nuevo si es null.
+     * @param destino Arreglo destino provisto.
+     * @param cantidad Cantidad de píxeles a escribir.
+     * @return Arreglo destino.
+     */
+    private static int[] getDestino(int[] destino, int cantidad)
+    {
+        if (destino == null)
+            return new int[cantidad];
+
+        if (destino.length < cantidad)
+            throw new IllegalArgumentException("El arreglo destino tiene " + destino.length + " elementos y se requieren " + cantidad);
+
+        return destino;
+    }
+
+    /**
+     * Método privado que indica si los píxeles del raster ocupan el arreglo que lo respalda desde el comienzo,
+     * fila tras fila y sin relleno, como ocurre con las imágenes leídas o creadas enteras (no así con las
+     * obtenidas con getSubimage()).
+     * @param raster Raster a analizar.
+     * @return Booleano que indica si el raster es compacto.
+     */
+    private static boolean esCompacto(WritableRaster raster)
+    {
+        if (raster.getParent() != null || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0 ||
+                raster.getDataBuffer().getNumBanks() != 1 || raster.getDataBuffer().getOffset() != 0)
+            return false;
+
+        SampleModel modelo = raster.getSampleModel();
+        if (modelo instanceof ComponentSampleModel) {
+            ComponentSampleModel componentes = (ComponentSampleModel) modelo;
+            return componentes.getScanlineStride() == componentes.getPixelStride() * raster.getWidth();
+        }
+
+        return modelo instanceof SinglePixelPackedSampleModel &&
+                ((SinglePixelPackedSampleModel) modelo).getScanlineStride() == raster.getWidth();
+    }
+
+    /**
+     * Método privado que obtiene los 256 colores de una paleta, completando con 0 si tiene menos.
+     * @param paleta Modelo de color indexado.
+     * @return Arreglo indexado por índice de paleta con su valor RGB.
+     */
+    private static int[] getPaleta(IndexColorModel paleta)
+    {
+        int[] colores = new int[256];
+        paleta.getRGBs(colores);
+        return colores;
+    }
+}
@@ -0,0 +1,18 @@
+package com.company;
+
+/**
+ * Interfaz que deben implementar las tablas capaces de traducir un flujo de bits a símbolos, para que
+ * los distintos modos de descompresión puedan utilizarlas indistintamente.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public interface DecodificadorSimbolos {
+
+    /**
+     * Decodifica varios símbolos consecutivos del flujo de bits, depositándolos en el arreglo destino.
+     * @param lector Fuente de bits.
+     * @param destino Arreglo donde se depositan los símbolos.
+     * @param desde Posición del arreglo a partir de la cuál se escribe.
+     * @param cantidad Cantidad de símbolos a decodificar.
+     */
+    void decodificar(LectorBits lector, int[] destino, int desde, int cantidad);
+}
@@ -0,0 +1,116 @@
+package com.company;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Clase que permite escribir bits de a varios sobre un canal, en el orden que luego espera LectorBits
+ * (el bit más significativo de cada byte primero).
+ * Los bits se acumulan en un entero de 64 bits y se vuelcan de a 32 sobre un buffer de gran tamaño, que
+ * recién se escribe en el canal al llenarse. De esta manera nunca se materializa la codificación como
+ * cadena de texto y la memoria utilizada no depende del tamaño de la salida.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class EscritorBits {
+
+    /**
+     * Cantidad máxima de bits que se pueden escribir en una sola llamada a escribirBits().
+     */
+    public static final int MAXIMO_BITS_ESCRITURA = 32;
+
+    private static final int TAMANIO_BUFFER = 1 << 20;
+
+    private final WritableByteChannel canal;
+    private final ByteBuffer buffer;
+
+    // Los bits pendientes se encuentran alineados a la derecha
+    private long acumulador = 0L;
+    private int bits_pendientes = 0;
+    private long bits_escritos = 0L;
+
+    /**
+     * Genera un escritor de bits sobre el canal indicado.
+     * @param canal Canal sobre el cuál se volcarán los bytes generados.
+     */
+    public EscritorBits(WritableByteChannel canal) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+    }
+
+    /**
+     * Genera un escritor de bits sobre el canal indicado, con un buffer intermedio del tamaño deseado.
+     * Pensado para escribir muchos flujos pequeños en memoria, donde el buffer por defecto sería excesivo.
+     * @param canal Canal sobre el cuál se volcarán los bytes generados.
+     * @param tamanio_buffer Tamaño del buffer intermedio en bytes, múltiplo de 4.
+     */
+    public EscritorBits(WritableByteChannel canal, int tamanio_buffer) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocate(tamanio_buffer);
+    }
+
+    /**
+     * Escribe los bits menos significativos de un entero.
+     * @param codigo Entero que contiene los bits a escribir.
+     * @param longitud Cantidad de bits a escribir, entre 0 y MAXIMO_BITS_ESCRITURA.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public void escribirBits(int codigo, int longitud) throws IOException
+    {
+        acumulador = (acumulador << longitud) | (codigo & (0xFFFFFFFFL >>> (32 - longitud)));
+        bits_pendientes += longitud;
+        bits_escritos += longitud;
+
+        if (bits_pendientes >= 32) {
+            bits_pendientes -= 32;
+
+            if (!buffer.hasRemaining())
+                volcarBuffer();
+            buffer.putInt((int) (acumulador >>> bits_pendientes));
+        }
+    }
+
+    /**
+     * Retorna la cantidad de bits escritos hasta el momento, incluyendo el relleno agregado por vaciar().
+     * @return Cantidad de bits escritos.
+     */
+    public long getBitsEscritos() {
+        return bits_escritos;
+    }
+
+    /**
+     * Completa con ceros el último byte y vuelca sobre el canal todo lo pendiente. El canal no se cierra.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public void vaciar() throws IOException
+    {
+        if (bits_pendientes % 8 != 0) {
+            int relleno = 8 - bits_pendientes % 8;
+            acumulador <<= relleno;
+            bits_pendientes += relleno;
+            bits_escritos += relleno;
+        }
+
+        if (buffer.remaining() < 4)
+            volcarBuffer();
+
+        while (bits_pendientes > 0) {
+            bits_pendientes -= 8;
+            buffer.put((byte) (acumulador >>> bits_pendientes));
+        }
+
+        volcarBuffer();
+    }
+
+    /**
+     * Método privado que escribe el contenido del buffer en el canal y lo deja listo para seguir usándose.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    private void volcarBuffer() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            canal.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,134 @@
+package com.company;
+
+/**
+ * Clase que guarda la transformada de Fourier en dos dimensiones de la franja de columnas de una imagen que
+ * interviene en BusquedaSolapamientoFourier: las últimas columnas si la imagen se ubica a la izquierda, o las
+ * primeras si se ubica a la derecha. Junto con la transformada se guardan las sumas acumuladas en dos
+ * dimensiones de los cuadrados de la franja, con las que la búsqueda obtiene las normas.
+ *
+ * Al ordenar N imágenes, cada una participa en N - 1 pares como izquierda y en otros tantos como derecha, por
+ * lo que transformar sus franjas una única vez evita repetir 2 (N - 1) veces la misma transformada. Dos
+ * espectros se pueden combinar si tienen el mismo alto y se generaron con el mismo ancho de búsqueda y el
+ * mismo desplazamiento máximo, aunque sus franjas tengan anchos distintos.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class EspectroFranja {
+
+    private final boolean es_izquierda;
+    private final int ancho;
+    private final int alto;
+    private final int maximo_desplazamiento;
+    private final int filas;
+    private final int columnas;
+    private final double[][] transformada;
+    private final long[] energias;
+
+    /**
+     * Genera el espectro de la franja de una imagen.
+     * @param vista Vista en escala de grises de la imagen.
+     * @param es_izquierda TRUE: transforma las últimas columnas, para ubicar la imagen a la izquierda; FALSE:
+     *                     las primeras, para ubicarla a la derecha.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar; la franja se acota al ancho de la imagen.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar en cada sentido.
+     */
+    public EspectroFranja(VistaImagen vista, boolean es_izquierda, int maximo_columnas, int maximo_desplazamiento)
+    {
+        int m = Math.max(0, Math.min(maximo_columnas, vista.getAncho()));
+        int alto = vista.getAlto();
+        int dm = Math.max(0, Math.min(maximo_desplazamiento, alto / 2));
+
+        this.es_izquierda = es_izquierda;
+        this.ancho = m;
+        this.alto = alto;
+        this.maximo_desplazamiento = dm;
+
+        // La transformada debe alojar el producto de dos franjas de hasta maximo_columnas columnas sin que
+        // se superpongan al dar la vuelta
+        this.filas = BusquedaSolapamientoFourier.getPotencia(alto + dm);
+        this.columnas = BusquedaSolapamientoFourier.getPotencia(2 * Math.max(0, maximo_columnas));
+        this.transformada = new double[2][filas * columnas];
+        this.energias = new long[(alto + 1) * (m + 1)];
+
+        if (m == 0)
+            return;
+
+        int[] datos = vista.getDatos();
+        for (int y = 0; y < alto; y++) {
+            int inicio = vista.getIndice(es_izquierda ? vista.getAncho() - m : 0, y);
+
+            for (int x = 0; x < m; x++) {
+                int valor = datos[inicio + x];
+                transformada[0][y * columnas + x] = valor;
+
+                int celda = (y + 1) * (m + 1) + x + 1;
+                energias[celda] = (long) valor * valor + energias[celda - 1] + energias[celda - m - 1] - energias[celda - m - 2];
+            }
+        }
+
+        BusquedaSolapamientoFourier.transformar(transformada, filas, columnas, alto);
+    }
+
+    /**
+     * Indica si la franja corresponde a las últimas columnas de la imagen.
+     * @return TRUE si la imagen se ubica a la izquierda; FALSE si se ubica a la derecha.
+     */
+    public boolean esIzquierda() {
+        return es_izquierda;
+    }
+
+    /**
+     * Retorna el ancho de la franja transformada.
+     * @return Ancho, en columnas.
+     */
+    public int getAncho() {
+        return ancho;
+    }
+
+    /**
+     * Retorna el alto de la imagen.
+     * @return Alto, en filas.
+     */
+    public int getAlto() {
+        return alto;
+    }
+
+    /**
+     * Retorna el desplazamiento vertical máximo para el que se dimensionó la transformada.
+     * @return Desplazamiento máximo, en filas.
+     */
+    public int getMaximoDesplazamiento() {
+        return maximo_desplazamiento;
+    }
+
+    /**
+     * Retorna la cantidad de filas de la transformada.
+     * @return Cantidad de filas, potencia de 2.
+     */
+    int getFilas() {
+        return filas;
+    }
+
+    /**
+     * Retorna la cantidad de columnas de la transformada.
+     * @return Cantidad de columnas, potencia de 2.
+     */
+    int getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * Retorna las partes real e imaginaria de la transformada, almacenada por filas. No debe modificarse.
+     * @return Transformada de la franja.
+     */
+    double[][] getTransformada() {
+        return transformada;
+    }
+
+    /**
+     * Retorna las sumas acumuladas de los cuadrados de la franja, de (alto + 1) x (ancho + 1) elementos.
+     * @return Sumas acumuladas.
+     */
+    long[] getEnergias() {
+        return energias;
+    }
+}
@@ -60,7 +60,7 @@ public class Histograma {
      */
     private void generarHistograma()
     {
-        int[] arr_img = Utils.serializarMatriz(Utils.generarMatrizRGB(img, true));
+        int[] arr_img = ConversorPixeles.getGrises(img, null);
 
         double[] arr_posta = new double[arr_img.length];
         for (int i = 0; i < arr_img.length; i++)
@@ -94,7 +94,7 @@ public class Histograma {
      */
     private void generarDistribuciones() throws IOException
     {
-        int[] arr_img = Utils.serializarMatriz(Utils.generarMatrizRGB(img, true));
+        int[] arr_img = ConversorPixeles.getGrises(img, null);
 
         HashMap<Integer, Double> mapa = Utils.getProbabilidades(arr_img);
 
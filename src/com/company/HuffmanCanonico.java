@@ -0,0 +1,90 @@
+package com.company;
+
+/**
+ * Clase que define métodos estáticos para trabajar con códigos de Huffman canónicos.
+ * En un código canónico, los códigos quedan completamente determinados por la longitud asignada a cada
+ * símbolo: los símbolos se ordenan por longitud (y a igual longitud, por valor) y se les asignan códigos
+ * consecutivos. Por lo tanto alcanza con guardar las longitudes para que el decodificador reconstruya
+ * exactamente los mismos códigos, sin depender de cómo se desempataron las frecuencias al armar el árbol.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class HuffmanCanonico {
+
+    /**
+     * Longitud máxima de código soportada por la representación canónica.
+     */
+    public static final int MAXIMA_LONGITUD = EscritorBits.MAXIMO_BITS_ESCRITURA;
+
+    /**
+     * Método estático que obtiene la longitud de la codificación de cada símbolo a partir de un árbol.
+     * @param arbol Arbol de Huffman fuente.
+     * @param cantidad_simbolos Tamaño del alfabeto; los símbolos del árbol deben ser menores a este valor.
+     * @return Arreglo indexado por símbolo con la longitud de su código (0 si el símbolo no aparece).
+     */
+    public static byte[] getLongitudes(ArbolHuffman arbol, int cantidad_simbolos)
+    {
+        int[] codigos = new int[cantidad_simbolos];
+        byte[] longitudes = new byte[cantidad_simbolos];
+
+        CodificadorHuffmanNuevo.getCodificacion(arbol, 0, 0, codigos, longitudes);
+
+        // Un árbol de un solo símbolo no genera bits, pero en forma canónica necesita al menos uno
+        // para distinguirse de los símbolos ausentes
+        if (arbol.esHoja())
+            longitudes[((NodoHoja) arbol).getSimbolo()] = 1;
+
+        return longitudes;
+    }
+
+    /**
+     * Método estático que asigna los códigos canónicos correspondientes a las longitudes dadas.
+     * @param longitudes Arreglo indexado por símbolo con la longitud de su código (0 si el símbolo no aparece).
+     * @return Arreglo indexado por símbolo con su código, alineado a la derecha.
+     */
+    public static int[] asignarCodigos(byte[] longitudes)
+    {
+        int[] cantidad_por_longitud = new int[MAXIMA_LONGITUD + 1];
+        for (byte longitud : longitudes)
+            cantidad_por_longitud[longitud]++;
+        cantidad_por_longitud[0] = 0;
+
+        // Primer código de cada longitud
+        int[] siguiente_codigo = new int[MAXIMA_LONGITUD + 1];
+        int codigo = 0;
+        for (int longitud = 1; longitud <= MAXIMA_LONGITUD; longitud++) {
+            codigo = (codigo + cantidad_por_longitud[longitud - 1]) << 1;
+            siguiente_codigo[longitud] = codigo;
+        }
+
+        int[] codigos = new int[longitudes.length];
+        for (int simbolo = 0; simbolo < longitudes.length; simbolo++)
+            if (longitudes[simbolo] != 0)
+                codigos[simbolo] = siguiente_codigo[longitudes[simbolo]]++;
+
+        return codigos;
+    }
+
+    /**
+     * Método estático que indica si las longitudes forman un código prefijo completo, es decir, si se
+     * cumple la igualdad en la desigualdad de Kraft. Se utiliza para validar las cabeceras leídas de disco.
+     * @param longitudes Arreglo indexado por símbolo con la longitud de su código.
+     * @return Booleano que indica si el código es completo.
+     */
+    public static boolean esCompleto(byte[] longitudes)
+    {
+        long suma = 0;
+        int presentes = 0;
+
+        for (byte longitud : longitudes) {
+            if (longitud < 0 || longitud > MAXIMA_LONGITUD)
+                return false;
+            if (longitud != 0) {
+                suma += 1L << (MAXIMA_LONGITUD - longitud);
+                presentes++;
+            }
+        }
+
+        // Un único símbolo de longitud 1 es el caso degenerado aceptado
+        return suma == (1L << MAXIMA_LONGITUD) || (presentes == 1 && suma == (1L << (MAXIMA_LONGITUD - 1)));
+    }
+}
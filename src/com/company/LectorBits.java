@@ -0,0 +1,151 @@
+package com.company;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Clase que permite leer bits de a uno o de a varios desde un buffer de bytes, en el mismo orden en el
+ * que los deposita el codificador (el bit más significativo de cada byte primero).
+ * Internamente se mantiene un acumulador de 64 bits que se recarga de a bytes, de manera que la mayoría
+ * de las lecturas se resuelven con un par de desplazamientos, sin generar objetos intermedios.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class LectorBits {
+
+    /**
+     * Cantidad máxima de bits que se pueden observar de una sola vez con verBits().
+     */
+    public static final int MAXIMO_BITS_LECTURA = 32;
+
+    private final ByteBuffer buffer;
+
+    // Los bits válidos del acumulador se encuentran alineados a la izquierda
+    private long acumulador = 0L;
+    private int bits_disponibles = 0;
+
+    // Bits de relleno agregados al acumulador una vez agotado el buffer
+    private long bits_relleno = 0L;
+
+    /**
+     * Genera un lector de bits a partir de un buffer. La lectura comienza en la posición actual del buffer.
+     * @param buffer Buffer fuente de los bits.
+     */
+    public LectorBits(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Método estático que mapea un archivo completo en memoria, de manera que el sistema operativo lo vaya
+     * trayendo de disco a medida que se lee, sin copiarlo a un arreglo ni reservar memoria por cada byte.
+     * El mapeo sigue siendo válido luego de cerrado el canal.
+     * @param archivo Archivo a mapear.
+     * @return Buffer de sólo lectura con el contenido del archivo, posicionado al comienzo.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public static ByteBuffer mapearArchivo(File archivo) throws IOException
+    {
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+    }
+
+    /**
+     * Método privado que completa el acumulador con los bytes restantes del buffer. Mientras queden al
+     * menos 8 bytes se leen de a varios con un único acceso; una vez agotado el buffer se completa con
+     * ceros, que es lo mismo que hace el codificador al rellenar el último bloque. Los ceros agregados se
+     * cuentan, para que verificarFin() detecte si alguno llegó a consumirse.
+     */
+    private void recargar()
+    {
+        int posicion = buffer.position();
+
+        if (buffer.limit() - posicion >= 8) {
+            int bytes = (63 - bits_disponibles) >>> 3;
+            long siguientes = buffer.getLong(posicion) >>> (64 - 8 * bytes);
+
+            acumulador |= siguientes << (64 - 8 * bytes - bits_disponibles);
+            bits_disponibles += 8 * bytes;
+            buffer.position(posicion + bytes);
+            return;
+        }
+
+        while (bits_disponibles <= 56) {
+            long bait = 0;
+            if (buffer.hasRemaining())
+                bait = buffer.get() & 0xFF;
+            else
+                bits_relleno += 8;
+
+            acumulador |= bait << (56 - bits_disponibles);
+            bits_disponibles += 8;
+        }
+    }
+
+    /**
+     * Indica si se consumieron bits más allá del final del buffer. Observarlos con verBits() no cuenta, ya
+     * que las tablas de decodificación miran más bits de los que consumen.
+     * @return Booleano que indica si la lectura excedió los datos disponibles.
+     */
+    public boolean excedido() {
+        return bits_relleno > bits_disponibles;
+    }
+
+    /**
+     * Verifica que todos los bits consumidos hayan sido leídos del buffer, y no completados con ceros. Se
+     * invoca al terminar de decodificar, para rechazar los datos truncados.
+     * @throws IOException En caso de que la lectura haya excedido los datos disponibles.
+     */
+    public void verificarFin() throws IOException
+    {
+        if (excedido())
+            throw new IOException("Datos truncados: se leyeron " + (bits_relleno - bits_disponibles) + " bits más allá del final");
+    }
+
+    /**
+     * Retorna los próximos bits del flujo sin consumirlos.
+     * @param cantidad Cantidad de bits a observar, entre 1 y MAXIMO_BITS_LECTURA.
+     * @return Entero cuyos bits menos significativos son los bits leídos.
+     */
+    public int verBits(int cantidad)
+    {
+        if (bits_disponibles < cantidad)
+            recargar();
+
+        return (int) (acumulador >>> (64 - cantidad));
+    }
+
+    /**
+     * Descarta bits del flujo, previamente observados con verBits().
+     * @param cantidad Cantidad de bits a descartar.
+     */
+    public void consumirBits(int cantidad)
+    {
+        acumulador <<= cantidad;
+        bits_disponibles -= cantidad;
+    }
+
+    /**
+     * Lee y consume los próximos bits del flujo.
+     * @param cantidad Cantidad de bits a leer, entre 1 y MAXIMO_BITS_LECTURA.
+     * @return Entero cuyos bits menos significativos son los bits leídos.
+     */
+    public int leerBits(int cantidad)
+    {
+        int valor = verBits(cantidad);
+        consumirBits(cantidad);
+        return valor;
+    }
+
+    /**
+     * Lee y consume un único bit del flujo.
+     * @return 0 o 1, según el bit leído.
+     */
+    public int leerBit()
+    {
+        return leerBits(1);
+    }
+}
@@ -39,8 +39,6 @@ public class MainWindow {
     private JButton button_descomprimir_perdida;
     private ConcatenadorImagenes concatenadorImagenes;
 
-    private String aux;
-
     /**
      * Genera la ventana principal.
      * @param ci Concatenador de imágenes que se utilizará para unir las imágenes.
@@ -246,7 +244,7 @@ public class MainWindow {
             mapa_probs = getProbabilidades();
             List<NodoHoja> listaNodos = new ArrayList<>();
             for (String simbolo : mapa_probs.keySet())
-                listaNodos.add(new NodoHoja(mapa_probs.get(simbolo), simbolo.toString()));
+                listaNodos.add(new NodoHoja(mapa_probs.get(simbolo), Integer.parseInt(simbolo)));
 
             CodificadorHuffmanNuevo huffman = new CodificadorHuffmanNuevo(listaNodos);
 
@@ -260,16 +258,18 @@ public class MainWindow {
 
             PrintWriter pw = new PrintWriter(fichero);
 
-            Map<String, String> mapa_simbolo_codificacion = new HashMap<>();
-            CodificadorHuffmanNuevo.getCodificacion(huffman.getArbol(), new StringBuilder(), mapa_simbolo_codificacion);
-           // HashMap<Integer,Double> probabilidades = Utils.getProbabilidades(arr_img);
+            int[] codigos = new int[256];
+            byte[] longitudes = new byte[256];
+            CodificadorHuffmanNuevo.getCodificacion(huffman.getArbol(), 0, 0, codigos, longitudes);
 
             double suma =0.0d;
 
-            for (String key : mapa_simbolo_codificacion.keySet()) {
-                Integer clave  = Integer.parseInt(key);
-                suma += mapa_simbolo_codificacion.get(key).length()*mapa_probs.get(key);
-                pw.println(key + " : " + mapa_simbolo_codificacion.get(key));
+            for (int simbolo = 0; simbolo < longitudes.length; simbolo++) {
+                if (longitudes[simbolo] == 0)
+                    continue;
+
+                suma += longitudes[simbolo] * mapa_probs.get(Integer.toString(simbolo));
+                pw.println(simbolo + " : " + CodificadorHuffmanNuevo.getCodigoComoCadena(codigos[simbolo], longitudes[simbolo]));
             }
 
             pw.println("Longitud media: " + suma);
@@ -321,16 +321,14 @@ public class MainWindow {
                 e1.printStackTrace();
             }
 
-            Map<String, String> mapa = new HashMap<>();
-            CodificadorHuffmanNuevo.getCodificacion(huffman.getArbol(), new StringBuilder(), mapa);
-
-            aux = Utils.getCadenaPixeles(img_seleccionada, mapa);
+            byte[] longitudes = HuffmanCanonico.getLongitudes(huffman.getArbol(), 256);
 
             int ancho = img_seleccionada.getWidth();
             int alto = img_seleccionada.getHeight();
+            int[] pixeles = ConversorPixeles.getGrises(img_seleccionada, null);
 
             try {
-                CodificadorHuffmanNuevo.generarComprimido(aux, "comprimido", ancho, alto);
+                CodificadorBloques.comprimir(pixeles, longitudes, CodificadorBloques.FILAS_POR_BLOQUE, "comprimido", ancho, alto);
             } catch (IOException e1) {
                 e1.printStackTrace();
             }
@@ -351,42 +349,32 @@ public class MainWindow {
             if (returnVal != JFileChooser.APPROVE_OPTION)
                 return;
 
-            JFileChooser chooser_probs = new JFileChooser(Paths.get("").toAbsolutePath().toString());
-            FileNameExtensionFilter filter_probs = new FileNameExtensionFilter("Distribución de Probabilidades TXT", "txt");
+            File archivo_huff = chooser_huff.getSelectedFile();
+            BufferedImage img_descomprimida = null;
 
-            chooser_probs.setDialogTitle("Seleccionar TXT con las probabilidades");
-            chooser_probs.setFileFilter(filter_probs);
+            try {
+                if (CodificadorHuffmanNuevo.esCanonico(archivo_huff)) {
+                    img_descomprimida = CodificadorHuffmanNuevo.descomprimir(archivo_huff);
+                } else {
+                    // Los archivos del formato original requieren la distribución con la que se generaron
+                    JFileChooser chooser_probs = new JFileChooser(Paths.get("").toAbsolutePath().toString());
+                    FileNameExtensionFilter filter_probs = new FileNameExtensionFilter("Distribución de Probabilidades TXT", "txt");
 
-            returnVal = chooser_probs.showOpenDialog(frame);
+                    chooser_probs.setDialogTitle("Seleccionar TXT con las probabilidades");
+                    chooser_probs.setFileFilter(filter_probs);
 
-            if (returnVal != JFileChooser.APPROVE_OPTION)
-                return;
+                    returnVal = chooser_probs.showOpenDialog(frame);
 
-            CodificadorHuffmanNuevo huffman = null;
-            List<String> aux = null;
+                    if (returnVal != JFileChooser.APPROVE_OPTION)
+                        return;
 
-            try {
-                huffman = new CodificadorHuffmanNuevo(chooser_probs.getSelectedFile());
-                aux = CodificadorHuffmanNuevo.leerArchivo(chooser_huff.getSelectedFile());
+                    CodificadorHuffmanNuevo huffman = new CodificadorHuffmanNuevo(chooser_probs.getSelectedFile());
+                    img_descomprimida = CodificadorHuffmanNuevo.descomprimir(archivo_huff, huffman.getArbol());
+                }
             } catch (IOException e1) {
                 e1.printStackTrace();
             }
 
-            int ancho = Integer.parseInt(aux.get(0)); // Ancho
-            int alto = Integer.parseInt(aux.get(1)); // Alto
-            String cadena = aux.get(2); // Codificación
-
-            List<String> decodificacion = CodificadorHuffmanNuevo.getCadena(huffman.getArbol(), new StringBuilder(cadena),ancho,alto);
-            int[] arr_img_desc = new int[decodificacion.size()];
-
-            for (int i = 0; i < arr_img_desc.length; i++){
-                int color = Integer.parseInt(decodificacion.get(i));
-                arr_img_desc[i] = new Color(color, color, color).getRGB();
-            }
-
-            BufferedImage img_descomprimida = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
-            img_descomprimida.getRaster().setDataElements(0, 0, ancho, alto, arr_img_desc);
-
             try {
                 ImageIO.write(img_descomprimida, "bmp", new File("descomprimido.bmp"));
             } catch (IOException e1) {
@@ -407,7 +395,7 @@ public class MainWindow {
         button_comprimir_perdida.addActionListener(e -> {
 
             concatenadorImagenes.generarComprimidoRunLength(100);
-            JOptionPane.showMessageDialog(frame, "La imagen se comprimió exitosamente en el siguiente archivo:\nrunlength.txt");
+            JOptionPane.showMessageDialog(frame, "La imagen se comprimió exitosamente en el siguiente archivo:\nrunlength.rle");
             button_descomprimir_perdida.setEnabled(true);
 
 
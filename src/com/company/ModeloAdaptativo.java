@@ -0,0 +1,138 @@
+package com.company;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Clase que define un modelo de Huffman semi-adaptativo, que no requiere conocer de antemano la
+ * distribución de probabilidades de la fuente.
+ * Todos los símbolos comienzan con una ocurrencia, y a medida que se codifican (o decodifican) se van
+ * contando. Cada cierta cantidad de símbolos se reconstruye el código canónico a partir de los conteos
+ * acumulados; como codificador y decodificador ven exactamente la misma secuencia de símbolos, ambos
+ * reconstruyen el mismo código en el mismo momento sin que haga falta transmitirlo.
+ * El intervalo entre reconstrucciones comienza siendo corto para adaptarse rápido y se duplica hasta un
+ * máximo, y los conteos se reducen a la mitad al superar un umbral, de manera que el modelo sigue a las
+ * fuentes cuya distribución cambia a lo largo de la imagen.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class ModeloAdaptativo {
+
+    private static final int INTERVALO_INICIAL = 256;
+    private static final int INTERVALO_MAXIMO = 1 << 16;
+    private static final int LIMITE_CONTEOS = 1 << 20;
+
+    private final int[] conteos;
+    private final byte[] longitudes;
+    private int[] codigos;
+    private TablaDecodificacion tabla;
+
+    private final ConstructorHuffman constructor;
+    private final boolean decodifica;
+
+    private int total;
+    private int intervalo = INTERVALO_INICIAL;
+    private int pendientes = INTERVALO_INICIAL;
+
+    /**
+     * Genera un modelo para el alfabeto indicado, con todos los símbolos equiprobables.
+     * @param cantidad_simbolos Tamaño del alfabeto.
+     * @param decodifica TRUE: el modelo se usará para decodificar y debe mantener una tabla de decodificación;
+     *                   FALSE: el modelo se usará para codificar.
+     */
+    public ModeloAdaptativo(int cantidad_simbolos, boolean decodifica) {
+        this.conteos = new int[cantidad_simbolos];
+        this.longitudes = new byte[cantidad_simbolos];
+        this.constructor = new ConstructorHuffman(cantidad_simbolos);
+        this.decodifica = decodifica;
+
+        Arrays.fill(conteos, 1);
+        total = cantidad_simbolos;
+        reconstruir();
+    }
+
+    /**
+     * Codifica un símbolo con el código vigente y actualiza el modelo.
+     * @param simbolo Símbolo a codificar.
+     * @param escritor Escritor sobre el cuál se vuelcan los bits.
+     * @throws IOException En caso de que se produzcan errores de entrada/salida.
+     */
+    public void codificar(int simbolo, EscritorBits escritor) throws IOException
+    {
+        escritor.escribirBits(codigos[simbolo], longitudes[simbolo]);
+        actualizar(simbolo);
+    }
+
+    /**
+     * Decodifica un símbolo con el código vigente y actualiza el modelo.
+     * @param lector Fuente de bits.
+     * @return Símbolo decodificado.
+     */
+    public int decodificar(LectorBits lector)
+    {
+        int simbolo = tabla.decodificarSimbolo(lector);
+        actualizar(simbolo);
+        return simbolo;
+    }
+
+    /**
+     * Decodifica varios símbolos consecutivos, actualizando el modelo con cada uno. Entre reconstrucciones
+     * el código no cambia, por lo que los símbolos se decodifican de a tramos con la misma tabla.
+     * @param lector Fuente de bits.
+     * @param destino Arreglo donde se depositan los símbolos.
+     * @param desde Posición del arreglo a partir de la cuál se escribe.
+     * @param cantidad Cantidad de símbolos a decodificar.
+     */
+    public void decodificar(LectorBits lector, int[] destino, int desde, int cantidad)
+    {
+        int hasta = desde + cantidad;
+
+        while (desde < hasta) {
+            int tramo = Math.min(pendientes, hasta - desde);
+            tabla.decodificar(lector, destino, desde, tramo);
+
+            for (int i = desde; i < desde + tramo; i++)
+                actualizar(destino[i]);
+
+            desde += tramo;
+        }
+    }
+
+    /**
+     * Método privado que suma una ocurrencia al símbolo y, si corresponde, reconstruye el código.
+     * @param simbolo Símbolo procesado.
+     */
+    private void actualizar(int simbolo)
+    {
+        conteos[simbolo]++;
+        total++;
+
+        if (--pendientes > 0)
+            return;
+
+        if (total > LIMITE_CONTEOS) {
+            total = 0;
+            for (int s = 0; s < conteos.length; s++) {
+                conteos[s] = (conteos[s] + 1) >>> 1;
+                total += conteos[s];
+            }
+        }
+
+        intervalo = Math.min(2 * intervalo, INTERVALO_MAXIMO);
+        pendientes = intervalo;
+        reconstruir();
+    }
+
+    /**
+     * Método privado que recalcula el código canónico a partir de los conteos actuales. Los códigos se
+     * acotan a CodificadorHuffmanNuevo.LONGITUD_ACOTADA bits, de forma que cada tabla se construye rápido y
+     * decodifica con una sola consulta.
+     */
+    private void reconstruir()
+    {
+        constructor.construirLimitado(conteos, CodificadorHuffmanNuevo.LONGITUD_ACOTADA, longitudes);
+        codigos = HuffmanCanonico.asignarCodigos(longitudes);
+
+        if (decodifica)
+            tabla = new TablaDecodificacion(codigos, longitudes);
+    }
+}
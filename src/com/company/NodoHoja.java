@@ -7,23 +7,33 @@ package com.company;
  */
 public class NodoHoja extends ArbolHuffman {
 
-    private final String simbolo;
+    private final int simbolo;
 
     /**
      * Crea un nodo hoja a partir de las características requeridas por el árbol de Huffman.
      * @param frecuencia Probabilidad de ocurrencia del símbolo.
-     * @param simbolo Cadena de texto que representa el símbolo de la hoja.
+     * @param simbolo Entero que representa el símbolo de la hoja (en las imágenes, el nivel de gris).
      */
-    public NodoHoja(double frecuencia, String simbolo) {
+    public NodoHoja(double frecuencia, int simbolo) {
         super(frecuencia);
         this.simbolo = simbolo;
     }
 
+    /**
+     * Crea un nodo hoja a partir de un símbolo expresado como texto, tal como aparece en los archivos de
+     * distribución de probabilidades. El texto se convierte a entero una única vez.
+     * @param frecuencia Probabilidad de ocurrencia del símbolo.
+     * @param simbolo Cadena de texto que representa el símbolo de la hoja.
+     */
+    public NodoHoja(double frecuencia, String simbolo) {
+        this(frecuencia, Integer.parseInt(simbolo));
+    }
+
     /**
      * Obtiene el símbolo del nodo.
      * @return Símbolo contenido en el nodo.
      */
-    public String getSimbolo() {
+    public int getSimbolo() {
         return simbolo;
     }
 
@@ -45,7 +55,7 @@ public class NodoHoja extends ArbolHuffman {
     @Override
     public String toString() {
         return "NodoHoja{" +
-                "simbolo='" + simbolo + '\'' +
+                "simbolo=" + simbolo +
                 '}';
     }
 }
@@ -0,0 +1,343 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Clase que determina el orden, de izquierda a derecha, en que deben unirse N imágenes en escala de grises
+ * para formar una panorámica. El puntaje de ubicar la imagen i inmediatamente a la izquierda de la j es la
+ * máxima correlación de BusquedaSolapamiento, y se busca la cadena que pase por todas las imágenes con la
+ * mayor suma de puntajes entre vecinas.
+ *
+ * Los puntajes de cada par ordenado se calculan una única vez, en paralelo, y quedan guardados en una
+ * matriz junto con el ancho de solapamiento de cada par. Si se indica un desplazamiento vertical máximo
+ * positivo, el solapamiento se busca con BusquedaSolapamientoFourier, que además estima el desplazamiento de
+ * cada par a partir de las franjas de cada imagen, transformadas una única vez; si no, con
+ * BusquedaSolapamiento, que para un único desplazamiento es más rápida e idéntica. Si se
+ * indican niveles de pirámide, en cambio, se busca con BusquedaPiramidal, generando una única pirámide por
+ * imagen. La cadena se elige con programación dinámica
+ * sobre subconjuntos (Held-Karp, O(2^N N^2)) hasta LIMITE_PROGRAMACION_DINAMICA imágenes, lo que garantiza
+ * el óptimo; por encima se arma de forma golosa, tomando los pares de mayor puntaje que no formen ciclos
+ * ni repitan vecino.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class OrdenadorPanoramica {
+
+    /**
+     * Cantidad máxima de imágenes para las que el orden se calcula con programación dinámica.
+     */
+    public static final int LIMITE_PROGRAMACION_DINAMICA = 16;
+
+    // Indica que el solapamiento se busca sólo en horizontal, con BusquedaSolapamiento
+    private static final int SIN_DESPLAZAMIENTO = 0;
+
+    private final double[][] puntajes;
+    private final int[][] columnas;
+    private final int[][] desplazamientos;
+    private final int[] orden;
+
+    /**
+     * Genera el ordenamiento de un conjunto de imágenes, utilizando el pool común de hilos.
+     * @param imagenes Matrices en escala de grises de las imágenes, todas del mismo alto.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar entre dos imágenes.
+     */
+    public OrdenadorPanoramica(List<int[][]> imagenes, int maximo_columnas)
+    {
+        this(imagenes, maximo_columnas, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Genera el ordenamiento de un conjunto de imágenes, calculando en paralelo el puntaje de cada par
+     * ordenado. Cada matriz se copia una única vez a un arreglo plano.
+     * @param imagenes Matrices en escala de grises de las imágenes, todas del mismo alto.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar entre dos imágenes.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     */
+    public OrdenadorPanoramica(List<int[][]> imagenes, int maximo_columnas, ForkJoinPool pool)
+    {
+        this(getVistas(imagenes), maximo_columnas, SIN_DESPLAZAMIENTO, pool);
+    }
+
+    /**
+     * Genera el ordenamiento de un conjunto de imágenes que pueden estar desplazadas verticalmente entre sí,
+     * calculando en paralelo el puntaje de cada par ordenado.
+     * @param imagenes Vistas en escala de grises de las imágenes, todas del mismo alto.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar entre dos imágenes.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar entre dos imágenes.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     */
+    public OrdenadorPanoramica(List<VistaImagen> imagenes, int maximo_columnas, int maximo_desplazamiento, ForkJoinPool pool)
+    {
+        this(imagenes, maximo_columnas, maximo_desplazamiento, 0, pool);
+    }
+
+    /**
+     * Genera el ordenamiento de un conjunto de imágenes que pueden estar desplazadas verticalmente entre sí,
+     * buscando el solapamiento de cada par sobre una pirámide de resoluciones.
+     * @param imagenes Vistas en escala de grises de las imágenes, todas del mismo alto.
+     * @param maximo_columnas Ancho máximo de solapamiento a evaluar entre dos imágenes.
+     * @param maximo_desplazamiento Desplazamiento vertical máximo, en filas, a evaluar entre dos imágenes.
+     * @param niveles Cantidad máxima de niveles de la pirámide, o 0 para buscar sólo en la resolución original.
+     * @param pool Pool de hilos sobre el que se ejecutan las tareas.
+     */
+    public OrdenadorPanoramica(List<VistaImagen> imagenes, int maximo_columnas, int maximo_desplazamiento, int niveles, ForkJoinPool pool)
+    {
+        int cantidad = imagenes.size();
+        puntajes = new double[cantidad][cantidad];
+        columnas = new int[cantidad][cantidad];
+        desplazamientos = new int[cantidad][cantidad];
+
+        List<ForkJoinTask<?>> tareas = new ArrayList<>();
+
+        // Las pirámides se generan una única vez por imagen, antes de comparar los pares
+        VistaImagen[][] piramides = new VistaImagen[cantidad][];
+        if (niveles > 0) {
+            for (int i = 0; i < cantidad; i++) {
+                final int imagen = i;
+                tareas.add(pool.submit(() -> {
+                    piramides[imagen] = BusquedaPiramidal.generarPiramide(imagenes.get(imagen), niveles);
+                }));
+            }
+
+            for (ForkJoinTask<?> tarea : tareas)
+                tarea.join();
+            tareas.clear();
+        }
+
+        // Del mismo modo, las franjas de cada imagen se transforman una única vez, como izquierda y como
+        // derecha, con un ancho de transformada que alcanza para el par de imágenes más anchas
+        EspectroFranja[] espectros_izquierda = new EspectroFranja[cantidad];
+        EspectroFranja[] espectros_derecha = new EspectroFranja[cantidad];
+        if (niveles <= 0 && maximo_desplazamiento > SIN_DESPLAZAMIENTO) {
+            int ancho_maximo = 0;
+            for (VistaImagen imagen : imagenes)
+                ancho_maximo = Math.max(ancho_maximo, imagen.getAncho());
+            int ancho_busqueda = Math.min(maximo_columnas, ancho_maximo);
+
+            for (int i = 0; i < cantidad; i++) {
+                final int imagen = i;
+                tareas.add(pool.submit(() -> {
+                    espectros_izquierda[imagen] = new EspectroFranja(imagenes.get(imagen), true, ancho_busqueda, maximo_desplazamiento);
+                    espectros_derecha[imagen] = new EspectroFranja(imagenes.get(imagen), false, ancho_busqueda, maximo_desplazamiento);
+                }));
+            }
+
+            for (ForkJoinTask<?> tarea : tareas)
+                tarea.join();
+            tareas.clear();
+        }
+
+        for (int i = 0; i < cantidad; i++) {
+            for (int j = 0; j < cantidad; j++) {
+                if (i == j)
+                    continue;
+
+                final int izquierda = i, derecha = j;
+                tareas.add(pool.submit(() -> {
+                    if (niveles > 0) {
+                        BusquedaPiramidal busqueda = new BusquedaPiramidal(piramides[izquierda], piramides[derecha], maximo_columnas, maximo_desplazamiento);
+                        puntajes[izquierda][derecha] = busqueda.getMaxCorrelacion();
+                        columnas[izquierda][derecha] = busqueda.getColumnasCoincidentes();
+                        desplazamientos[izquierda][derecha] = busqueda.getDesplazamientoVertical();
+                    } else if (maximo_desplazamiento <= SIN_DESPLAZAMIENTO) {
+                        BusquedaSolapamiento busqueda = new BusquedaSolapamiento(imagenes.get(izquierda), imagenes.get(derecha), maximo_columnas);
+                        puntajes[izquierda][derecha] = busqueda.getMaxCorrelacion();
+                        columnas[izquierda][derecha] = busqueda.getColumnasCoincidentes();
+                    } else {
+                        BusquedaSolapamientoFourier busqueda = new BusquedaSolapamientoFourier(espectros_izquierda[izquierda], espectros_derecha[derecha]);
+                        puntajes[izquierda][derecha] = busqueda.getMaxCorrelacion();
+                        columnas[izquierda][derecha] = busqueda.getColumnasCoincidentes();
+                        desplazamientos[izquierda][derecha] = busqueda.getDesplazamientoVertical();
+                    }
+                }));
+            }
+        }
+
+        for (ForkJoinTask<?> tarea : tareas)
+            tarea.join();
+
+        orden = cantidad <= LIMITE_PROGRAMACION_DINAMICA ? ordenarOptimo() : ordenarGoloso();
+    }
+
+    /**
+     * Retorna el puntaje de ubicar una imagen inmediatamente a la izquierda de otra.
+     * @param izquierda Índice de la imagen izquierda.
+     * @param derecha Índice de la imagen derecha.
+     * @return Máxima correlación entre ambas imágenes.
+     */
+    public double getPuntaje(int izquierda, int derecha) {
+        return puntajes[izquierda][derecha];
+    }
+
+    /**
+     * Retorna el ancho de solapamiento entre una imagen y la que se ubica a su derecha.
+     * @param izquierda Índice de la imagen izquierda.
+     * @param derecha Índice de la imagen derecha.
+     * @return Cantidad de columnas solapadas.
+     */
+    public int getColumnasCoincidentes(int izquierda, int derecha) {
+        return columnas[izquierda][derecha];
+    }
+
+    /**
+     * Retorna el desplazamiento vertical entre una imagen y la que se ubica a su derecha: la fila y de la
+     * derecha corresponde a la fila y + desplazamiento de la izquierda. Es 0 si no se buscaron desplazamientos.
+     * @param izquierda Índice de la imagen izquierda.
+     * @param derecha Índice de la imagen derecha.
+     * @return Desplazamiento vertical, en filas.
+     */
+    public int getDesplazamientoVertical(int izquierda, int derecha) {
+        return desplazamientos[izquierda][derecha];
+    }
+
+    /**
+     * Retorna el orden elegido.
+     * @return Índices de las imágenes, de izquierda a derecha.
+     */
+    public int[] getOrden() {
+        return orden.clone();
+    }
+
+    /**
+     * Método privado que calcula la cadena de máximo puntaje con programación dinámica sobre subconjuntos:
+     * mejor[S][j] es el máximo puntaje de una cadena que recorre las imágenes de S y termina en j. Ante
+     * empates se conserva la primera cadena encontrada.
+     * @return Índices de las imágenes, de izquierda a derecha.
+     */
+    private int[] ordenarOptimo()
+    {
+        int cantidad = puntajes.length;
+        if (cantidad == 0)
+            return new int[0];
+
+        int subconjuntos = 1 << cantidad;
+        double[] mejor = new double[subconjuntos * cantidad];
+        byte[] anterior = new byte[subconjuntos * cantidad];
+        Arrays.fill(mejor, Double.NEGATIVE_INFINITY);
+
+        for (int j = 0; j < cantidad; j++)
+            mejor[(1 << j) * cantidad + j] = 0;
+
+        for (int subconjunto = 1; subconjunto < subconjuntos; subconjunto++) {
+            for (int j = 0; j < cantidad; j++) {
+                double puntaje = mejor[subconjunto * cantidad + j];
+                if (puntaje == Double.NEGATIVE_INFINITY)
+                    continue;
+
+                for (int k = 0; k < cantidad; k++) {
+                    if ((subconjunto & (1 << k)) != 0)
+                        continue;
+
+                    int destino = (subconjunto | (1 << k)) * cantidad + k;
+                    double candidato = puntaje + puntajes[j][k];
+                    if (candidato > mejor[destino]) {
+                        mejor[destino] = candidato;
+                        anterior[destino] = (byte) j;
+                    }
+                }
+            }
+        }
+
+        int completo = subconjuntos - 1;
+        int ultima = 0;
+        for (int j = 1; j < cantidad; j++)
+            if (mejor[completo * cantidad + j] > mejor[completo * cantidad + ultima])
+                ultima = j;
+
+        int[] resultado = new int[cantidad];
+        int subconjunto = completo;
+        for (int posicion = cantidad - 1; posicion >= 0; posicion--) {
+            resultado[posicion] = ultima;
+            int previa = anterior[subconjunto * cantidad + ultima];
+            subconjunto &= ~(1 << ultima);
+            ultima = previa;
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Método privado que arma la cadena de forma golosa: recorre los pares ordenados de mayor a menor
+     * puntaje y agrega cada uno si la imagen izquierda todavía no tiene vecina derecha, la derecha no tiene
+     * vecina izquierda y ambas no pertenecen ya al mismo tramo.
+     * @return Índices de las imágenes, de izquierda a derecha.
+     */
+    private int[] ordenarGoloso()
+    {
+        int cantidad = puntajes.length;
+
+        List<int[]> pares = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++)
+            for (int j = 0; j < cantidad; j++)
+                if (i != j)
+                    pares.add(new int[]{i, j});
+        pares.sort((p, q) -> Double.compare(puntajes[q[0]][q[1]], puntajes[p[0]][p[1]]));
+
+        int[] siguiente = new int[cantidad];
+        boolean[] tiene_anterior = new boolean[cantidad];
+        int[] tramo = new int[cantidad];
+        Arrays.fill(siguiente, -1);
+        for (int i = 0; i < cantidad; i++)
+            tramo[i] = i;
+
+        int agregados = 0;
+        for (int[] par : pares) {
+            if (agregados == cantidad - 1)
+                break;
+
+            int izquierda = par[0], derecha = par[1];
+            if (siguiente[izquierda] >= 0 || tiene_anterior[derecha] || getTramo(tramo, izquierda) == getTramo(tramo, derecha))
+                continue;
+
+            siguiente[izquierda] = derecha;
+            tiene_anterior[derecha] = true;
+            tramo[getTramo(tramo, izquierda)] = getTramo(tramo, derecha);
+            agregados++;
+        }
+
+        int[] resultado = new int[cantidad];
+        int actual = 0;
+        while (tiene_anterior[actual])
+            actual++;
+
+        for (int posicion = 0; posicion < cantidad; posicion++) {
+            resultado[posicion] = actual;
+            actual = siguiente[actual];
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Método privado que retorna el representante del tramo al que pertenece una imagen, comprimiendo el
+     * camino recorrido.
+     * @param tramo Arreglo con el representante de cada imagen.
+     * @param imagen Índice de la imagen.
+     * @return Representante del tramo.
+     */
+    private static int getTramo(int[] tramo, int imagen)
+    {
+        while (tramo[imagen] != imagen) {
+            tramo[imagen] = tramo[tramo[imagen]];
+            imagen = tramo[imagen];
+        }
+        return imagen;
+    }
+
+    /**
+     * Método privado que copia cada matriz a un arreglo plano y genera una vista sobre él.
+     * @param matrices Matrices de las imágenes.
+     * @return Lista con una vista por matriz.
+     */
+    private static List<VistaImagen> getVistas(List<int[][]> matrices)
+    {
+        List<VistaImagen> vistas = new ArrayList<>();
+        for (int[][] matriz : matrices)
+            vistas.add(VistaImagen.deMatriz(matriz));
+
+        return vistas;
+    }
+}
@@ -0,0 +1,204 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Clase que define la etapa de predicción previa a la codificación de entropía. Cada nivel de gris se
+ * predice a partir de sus vecinos ya codificados (a: izquierda, b: arriba, c: arriba a la izquierda) y se
+ * codifica la diferencia con la predicción, módulo 256. En zonas suaves las diferencias se concentran
+ * alrededor de 0, por lo que su entropía es mucho menor que la de los niveles de gris originales.
+ *
+ * El predictor se elige fila por fila, tomando el que minimiza la suma de los valores absolutos de las
+ * diferencias, y la lista de predictores se guarda en la cabecera. Los vecinos que caen fuera de la
+ * imagen valen 0.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class Prediccion {
+
+    /**
+     * Predice con el píxel de la izquierda (a).
+     */
+    public static final byte IZQUIERDA = 0;
+
+    /**
+     * Predice con el píxel de arriba (b).
+     */
+    public static final byte ARRIBA = 1;
+
+    /**
+     * Predice con el promedio de los píxeles de la izquierda y de arriba.
+     */
+    public static final byte PROMEDIO = 2;
+
+    /**
+     * Predictor de Paeth (PNG): el vecino más cercano a a + b - c.
+     */
+    public static final byte PAETH = 3;
+
+    /**
+     * Predictor MED de LOCO-I (JPEG-LS), que detecta bordes horizontales y verticales.
+     */
+    public static final byte MED = 4;
+
+    /**
+     * Cantidad de predictores disponibles.
+     */
+    public static final int CANTIDAD_PREDICTORES = 5;
+
+    /**
+     * Método estático que calcula la predicción de un píxel a partir de sus vecinos.
+     * @param predictor Predictor a utilizar.
+     * @param a Nivel de gris del píxel de la izquierda.
+     * @param b Nivel de gris del píxel de arriba.
+     * @param c Nivel de gris del píxel de arriba a la izquierda.
+     * @return Predicción del nivel de gris.
+     */
+    public static int predecir(int predictor, int a, int b, int c)
+    {
+        switch (predictor) {
+            case IZQUIERDA:
+                return a;
+            case ARRIBA:
+                return b;
+            case PROMEDIO:
+                return (a + b) >>> 1;
+            case PAETH: {
+                int p = a + b - c;
+                int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+                return pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+            }
+            case MED:
+                if (c >= Math.max(a, b))
+                    return Math.min(a, b);
+                if (c <= Math.min(a, b))
+                    return Math.max(a, b);
+                return a + b - c;
+            default:
+                throw new IllegalArgumentException("Predictor desconocido: " + predictor);
+        }
+    }
+
+    /**
+     * Método estático que reemplaza cada nivel de gris por su diferencia con la predicción, eligiendo el
+     * mejor predictor para cada fila.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param residuos Arreglo donde se depositan las diferencias, entre 0 y 255.
+     * @return Arreglo con el predictor elegido para cada fila.
+     */
+    public static byte[] filtrar(int[] pixeles, int ancho, int alto, int[] residuos)
+    {
+        byte[] predictores = new byte[alto];
+
+        for (int fila = 0; fila < alto; fila++) {
+            long mejor_costo = Long.MAX_VALUE;
+
+            for (byte predictor = 0; predictor < CANTIDAD_PREDICTORES; predictor++) {
+                long costo = getCostoFila(pixeles, ancho, fila, predictor);
+                if (costo < mejor_costo) {
+                    mejor_costo = costo;
+                    predictores[fila] = predictor;
+                }
+            }
+        }
+
+        filtrar(pixeles, ancho, alto, predictores, residuos);
+        return predictores;
+    }
+
+    /**
+     * Método estático que reemplaza cada nivel de gris por su diferencia con la predicción, utilizando
+     * los predictores indicados.
+     * @param pixeles Niveles de gris de la imagen, de izquierda a derecha y de arriba a abajo.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param predictores Predictor a utilizar en cada fila.
+     * @param residuos Arreglo donde se depositan las diferencias, entre 0 y 255.
+     */
+    public static void filtrar(int[] pixeles, int ancho, int alto, byte[] predictores, int[] residuos)
+    {
+        for (int fila = 0; fila < alto; fila++) {
+            int inicio = fila * ancho;
+
+            for (int x = 0; x < ancho; x++) {
+                int i = inicio + x;
+                int a = x > 0 ? pixeles[i - 1] : 0;
+                int b = fila > 0 ? pixeles[i - ancho] : 0;
+                int c = x > 0 && fila > 0 ? pixeles[i - ancho - 1] : 0;
+
+                residuos[i] = (pixeles[i] - predecir(predictores[fila], a, b, c)) & 0xFF;
+            }
+        }
+    }
+
+    /**
+     * Método estático que reconstruye los niveles de gris a partir de las diferencias, sobre el mismo
+     * arreglo.
+     * @param datos Diferencias generadas por filtrar(); al finalizar contiene los niveles de gris.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     * @param predictores Predictor utilizado en cada fila.
+     */
+    public static void reconstruir(int[] datos, int ancho, int alto, byte[] predictores)
+    {
+        for (int fila = 0; fila < alto; fila++) {
+            int inicio = fila * ancho;
+
+            for (int x = 0; x < ancho; x++) {
+                int i = inicio + x;
+                int a = x > 0 ? datos[i - 1] : 0;
+                int b = fila > 0 ? datos[i - ancho] : 0;
+                int c = x > 0 && fila > 0 ? datos[i - ancho - 1] : 0;
+
+                datos[i] = (datos[i] + predecir(predictores[fila], a, b, c)) & 0xFF;
+            }
+        }
+    }
+
+    /**
+     * Método estático que reconstruye una imagen descomprimida cuyos píxeles contienen las diferencias en
+     * lugar de los niveles de gris.
+     * @param img Imagen de tipo TYPE_INT_RGB en escala de grises, que se modifica.
+     * @param predictores Predictor utilizado en cada fila.
+     */
+    public static void reconstruir(BufferedImage img, byte[] predictores)
+    {
+        int[] pixeles = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        for (int i = 0; i < pixeles.length; i++)
+            pixeles[i] &= 0xFF;
+
+        reconstruir(pixeles, img.getWidth(), img.getHeight(), predictores);
+
+        for (int i = 0; i < pixeles.length; i++)
+            pixeles[i] = 0xFF000000 | (pixeles[i] * 0x010101);
+    }
+
+    /**
+     * Método privado que estima el costo de codificar una fila con un predictor, como la suma de los
+     * valores absolutos de las diferencias (interpretadas entre -128 y 127).
+     * @param pixeles Niveles de gris de la imagen.
+     * @param ancho Ancho de la imagen.
+     * @param fila Fila a evaluar.
+     * @param predictor Predictor a evaluar.
+     * @return Costo estimado de la fila.
+     */
+    private static long getCostoFila(int[] pixeles, int ancho, int fila, int predictor)
+    {
+        int inicio = fila * ancho;
+        long costo = 0;
+
+        for (int x = 0; x < ancho; x++) {
+            int i = inicio + x;
+            int a = x > 0 ? pixeles[i - 1] : 0;
+            int b = fila > 0 ? pixeles[i - ancho] : 0;
+            int c = x > 0 && fila > 0 ? pixeles[i - ancho - 1] : 0;
+
+            costo += Math.abs((byte) (pixeles[i] - predecir(predictor, a, b, c)));
+        }
+
+        return costo;
+    }
+}
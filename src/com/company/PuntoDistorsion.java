@@ -0,0 +1,77 @@
+package com.company;
+
+/**
+ * Clase que define un punto de la curva tasa-distorsión de la compresión Run-Length: el tamaño del
+ * archivo comprimido y el error introducido para un umbral determinado.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class PuntoDistorsion {
+
+    private final int umbral;
+    private final long bytes;
+    private final double error_cuadratico_medio;
+    private final int error_maximo;
+
+    /**
+     * Genera un punto de la curva con los datos requeridos.
+     * @param umbral Umbral de pérdida evaluado.
+     * @param bytes Tamaño en bytes del archivo Run-Length binario.
+     * @param error_cuadratico_medio Error cuadrático medio por píxel.
+     * @param error_maximo Máxima diferencia absoluta entre un píxel original y el reconstruido.
+     */
+    public PuntoDistorsion(int umbral, long bytes, double error_cuadratico_medio, int error_maximo) {
+        this.umbral = umbral;
+        this.bytes = bytes;
+        this.error_cuadratico_medio = error_cuadratico_medio;
+        this.error_maximo = error_maximo;
+    }
+
+    /**
+     * Retorna el umbral de pérdida evaluado.
+     * @return Umbral de pérdida.
+     */
+    public int getUmbral() {
+        return umbral;
+    }
+
+    /**
+     * Retorna el tamaño en bytes del archivo Run-Length binario.
+     * @return Tamaño en bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Retorna el error cuadrático medio por píxel (MSE).
+     * @return Error cuadrático medio.
+     */
+    public double getErrorCuadraticoMedio() {
+        return error_cuadratico_medio;
+    }
+
+    /**
+     * Retorna la relación señal a ruido de pico (PSNR), en decibeles. Es infinita si no hay pérdida.
+     * @return PSNR en decibeles.
+     */
+    public double getPSNR() {
+        return error_cuadratico_medio == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(255.0 * 255.0 / error_cuadratico_medio);
+    }
+
+    /**
+     * Retorna la máxima diferencia absoluta entre un píxel original y el reconstruido.
+     * @return Error máximo.
+     */
+    public int getErrorMaximo() {
+        return error_maximo;
+    }
+
+    @Override
+    public String toString() {
+        // Utils.round() no admite valores infinitos
+        String psnr = error_cuadratico_medio == 0 ? "infinita" : Utils.round(getPSNR(), 2) + " dB";
+
+        return "umbral " + umbral + ": " + bytes + " bytes, MSE " + Utils.round(error_cuadratico_medio, 3) +
+                ", PSNR " + psnr + ", error máximo " + error_maximo;
+    }
+}
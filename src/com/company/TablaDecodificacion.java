@@ -0,0 +1,230 @@
+package com.company;
+
+import java.util.Arrays;
+
+/**
+ * Clase que define una tabla de búsqueda para decodificar códigos de Huffman sin recorrer el árbol bit
+ * a bit. Con los próximos BITS_TABLA bits del flujo se indexa la tabla y, si el código es suficientemente
+ * corto, se obtiene en un solo acceso tanto el símbolo como la longitud de su codificación.
+ * Los códigos más largos que BITS_TABLA terminan de resolverse recorriendo una versión del árbol
+ * almacenada en arreglos de enteros, comenzando desde el nodo al que se llegó con la tabla.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class TablaDecodificacion implements DecodificadorSimbolos {
+
+    /**
+     * Cantidad de bits con los que se indexa la tabla principal cuando hay códigos más largos que
+     * MAXIMO_BITS_TABLA.
+     */
+    public static final int BITS_TABLA = 11;
+
+    /**
+     * Longitud máxima de código para la cuál la tabla abarca todos los códigos, de manera que cada símbolo
+     * se decodifica con una única consulta (4096 entradas, 16 KB).
+     */
+    public static final int MAXIMO_BITS_TABLA = 12;
+
+    private static final int BITS_LONGITUD = 8;
+    private static final int MASCARA_LONGITUD = 0xFF;
+
+    // Cada entrada es (simbolo << 8) | longitud. Si longitud es 0, el resto indica el nodo interno del árbol
+    // en el que se debe continuar la decodificación.
+    private final int[] tabla;
+    private final int bits_tabla;
+
+    // Arbol aplanado: los hijos del nodo k son hijos[2k] (bit 0) e hijos[2k + 1] (bit 1).
+    // Un valor negativo ~s indica que el hijo es la hoja con el símbolo s.
+    private final int[] hijos;
+    private final int simbolo_unico;
+
+    /**
+     * Genera la tabla de decodificación a partir de un árbol de Huffman.
+     * @param arbol Arbol sobre el cuál se construye la tabla.
+     */
+    public TablaDecodificacion(ArbolHuffman arbol)
+    {
+        if (arbol.esHoja()) {
+            // Con un único símbolo la codificación tiene longitud cero y no hay nada que leer
+            simbolo_unico = ((NodoHoja) arbol).getSimbolo();
+            tabla = null;
+            hijos = null;
+            bits_tabla = 0;
+            return;
+        }
+
+        simbolo_unico = -1;
+        hijos = new int[2 * contarInternos(arbol)];
+        int max_longitud = aplanar(arbol, new int[]{0}, 0);
+
+        bits_tabla = max_longitud <= MAXIMO_BITS_TABLA ? max_longitud : BITS_TABLA;
+        tabla = new int[1 << bits_tabla];
+        completarTabla(0, 0, 0);
+    }
+
+    /**
+     * Genera la tabla de decodificación a partir del código de cada símbolo, por ejemplo el obtenido con
+     * HuffmanCanonico.asignarCodigos().
+     * @param codigos Arreglo indexado por símbolo con su código, alineado a la derecha.
+     * @param longitudes Arreglo indexado por símbolo con la longitud de su código (0 si el símbolo no aparece).
+     */
+    public TablaDecodificacion(int[] codigos, byte[] longitudes)
+    {
+        int presentes = 0, max_longitud = 0, ultimo = -1;
+        for (int simbolo = 0; simbolo < longitudes.length; simbolo++) {
+            if (longitudes[simbolo] != 0) {
+                presentes++;
+                ultimo = simbolo;
+                max_longitud = Math.max(max_longitud, longitudes[simbolo]);
+            }
+        }
+
+        if (max_longitud == 0) {
+            simbolo_unico = Math.max(ultimo, 0);
+            tabla = null;
+            hijos = null;
+            bits_tabla = 0;
+            return;
+        }
+
+        // Un código prefijo completo con n símbolos tiene n - 1 nodos internos
+        simbolo_unico = -1;
+        hijos = new int[2 * Math.max(presentes - 1, 1)];
+        int siguiente = 1;
+
+        for (int simbolo = 0; simbolo < longitudes.length; simbolo++) {
+            int longitud = longitudes[simbolo];
+            int nodo = 0;
+
+            for (int k = longitud - 1; k > 0; k--) {
+                int pos = 2 * nodo + ((codigos[simbolo] >>> k) & 1);
+                if (hijos[pos] == 0)
+                    hijos[pos] = siguiente++;
+                nodo = hijos[pos];
+            }
+
+            if (longitud != 0)
+                hijos[2 * nodo + (codigos[simbolo] & 1)] = ~simbolo;
+        }
+
+        bits_tabla = max_longitud <= MAXIMO_BITS_TABLA ? max_longitud : BITS_TABLA;
+        tabla = new int[1 << bits_tabla];
+        completarTabla(0, 0, 0);
+    }
+
+    /**
+     * Método privado recursivo que cuenta los nodos internos del árbol.
+     * @param arbol Arbol a recorrer.
+     * @return Cantidad de nodos internos.
+     */
+    private static int contarInternos(ArbolHuffman arbol)
+    {
+        if (arbol.esHoja())
+            return 0;
+
+        NodoInterno interno = (NodoInterno) arbol;
+        return 1 + contarInternos(interno.getNodo_izq()) + contarInternos(interno.getNodo_der());
+    }
+
+    /**
+     * Método privado recursivo que vuelca el árbol sobre el arreglo de hijos, numerando los nodos internos
+     * en preorden.
+     * @param arbol Nodo interno a volcar.
+     * @param siguiente Contador auxiliar con el próximo número de nodo libre.
+     * @param profundidad Profundidad del nodo actual.
+     * @return Longitud del código más largo debajo del nodo.
+     */
+    private int aplanar(ArbolHuffman arbol, int[] siguiente, int profundidad)
+    {
+        NodoInterno interno = (NodoInterno) arbol;
+        int nodo = siguiente[0]++;
+        int max_longitud = profundidad + 1;
+
+        ArbolHuffman[] hijos_nodo = {interno.getNodo_izq(), interno.getNodo_der()};
+        for (int bit = 0; bit < 2; bit++) {
+            if (hijos_nodo[bit].esHoja()) {
+                hijos[2 * nodo + bit] = ~((NodoHoja) hijos_nodo[bit]).getSimbolo();
+            } else {
+                hijos[2 * nodo + bit] = siguiente[0];
+                max_longitud = Math.max(max_longitud, aplanar(hijos_nodo[bit], siguiente, profundidad + 1));
+            }
+        }
+
+        return max_longitud;
+    }
+
+    /**
+     * Método privado recursivo que completa las entradas de la tabla que comienzan con el prefijo dado.
+     * @param nodo Nodo interno alcanzado con el prefijo.
+     * @param prefijo Bits leídos hasta el momento.
+     * @param longitud Cantidad de bits del prefijo.
+     */
+    private void completarTabla(int nodo, int prefijo, int longitud)
+    {
+        if (longitud == bits_tabla) {
+            tabla[prefijo] = nodo << BITS_LONGITUD;
+            return;
+        }
+
+        for (int bit = 0; bit < 2; bit++) {
+            int hijo = hijos[2 * nodo + bit];
+            int nuevo_prefijo = (prefijo << 1) | bit;
+
+            if (hijo < 0) {
+                // Todas las entradas que comienzan con el código de la hoja la decodifican
+                int libres = bits_tabla - longitud - 1;
+                int desde = nuevo_prefijo << libres;
+                Arrays.fill(tabla, desde, desde + (1 << libres), (~hijo << BITS_LONGITUD) | (longitud + 1));
+            } else {
+                completarTabla(hijo, nuevo_prefijo, longitud + 1);
+            }
+        }
+    }
+
+    /**
+     * Decodifica un único símbolo del flujo de bits.
+     * @param lector Fuente de bits.
+     * @return Símbolo decodificado.
+     */
+    public int decodificarSimbolo(LectorBits lector)
+    {
+        if (tabla == null)
+            return simbolo_unico;
+
+        int entrada = tabla[lector.verBits(bits_tabla)];
+        int longitud = entrada & MASCARA_LONGITUD;
+
+        if (longitud != 0) {
+            lector.consumirBits(longitud);
+            return entrada >>> BITS_LONGITUD;
+        }
+
+        // Código más largo que la tabla: se continúa por el árbol desde el nodo alcanzado
+        lector.consumirBits(bits_tabla);
+        int nodo = entrada >>> BITS_LONGITUD;
+        while (nodo >= 0)
+            nodo = hijos[2 * nodo + lector.leerBit()];
+
+        return ~nodo;
+    }
+
+    /**
+     * Decodifica varios símbolos consecutivos del flujo de bits, depositándolos en el arreglo destino.
+     * @param lector Fuente de bits.
+     * @param destino Arreglo donde se depositan los símbolos.
+     * @param desde Posición del arreglo a partir de la cuál se escribe.
+     * @param cantidad Cantidad de símbolos a decodificar.
+     */
+    @Override
+    public void decodificar(LectorBits lector, int[] destino, int desde, int cantidad)
+    {
+        int hasta = desde + cantidad;
+
+        if (tabla == null) {
+            Arrays.fill(destino, desde, hasta, simbolo_unico);
+            return;
+        }
+
+        for (int i = desde; i < hasta; i++)
+            destino[i] = decodificarSimbolo(lector);
+    }
+}
@@ -0,0 +1,117 @@
+package com.company;
+
+/**
+ * Clase que define una tabla de decodificación que puede resolver varios símbolos con una sola consulta.
+ * Cada entrada de la tabla corresponde a una ventana de BITS_VENTANA bits, y guarda todos los códigos
+ * completos (hasta SIMBOLOS_POR_ENTRADA) que entran uno detrás del otro en esa ventana, junto con la
+ * cantidad total de bits que ocupan. En imágenes de baja entropía, donde predominan los códigos cortos,
+ * esto permite obtener dos o tres píxeles por cada acceso a la tabla.
+ * Cuando el primer código de la ventana es más largo que ésta, se recurre a una TablaDecodificacion común.
+ * Sólo admite alfabetos de hasta 256 símbolos, ya que cada símbolo se guarda en 8 bits de la entrada.
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class TablaDecodificacionMultiple implements DecodificadorSimbolos {
+
+    /**
+     * Cantidad de bits de la ventana con la que se indexa la tabla.
+     */
+    public static final int BITS_VENTANA = 12;
+
+    /**
+     * Cantidad máxima de símbolos que se obtienen por consulta.
+     */
+    public static final int SIMBOLOS_POR_ENTRADA = 3;
+
+    // Cada entrada es: bits 0-4 cantidad de bits consumidos, bits 5-6 cantidad de símbolos,
+    // y a partir del bit 7, 8 bits por cada símbolo
+    private static final int MASCARA_BITS = 0x1F;
+    private static final int DESPLAZAMIENTO_CANTIDAD = 5;
+    private static final int DESPLAZAMIENTO_SIMBOLOS = 7;
+
+    private final int[] tabla = new int[1 << BITS_VENTANA];
+    private final TablaDecodificacion tabla_simple;
+
+    /**
+     * Genera la tabla a partir del código de cada símbolo.
+     * @param codigos Arreglo indexado por símbolo con su código, alineado a la derecha.
+     * @param longitudes Arreglo indexado por símbolo con la longitud de su código (0 si el símbolo no aparece).
+     * @throws IllegalArgumentException Si el alfabeto tiene más de 256 símbolos.
+     */
+    public TablaDecodificacionMultiple(int[] codigos, byte[] longitudes)
+    {
+        if (longitudes.length > 256)
+            throw new IllegalArgumentException("La tabla múltiple admite hasta 256 símbolos");
+
+        tabla_simple = new TablaDecodificacion(codigos, longitudes);
+
+        // Primer código de cada ventana: (simbolo << 8) | longitud, o 0 si no entra en la ventana
+        int[] primero = new int[1 << BITS_VENTANA];
+        for (int simbolo = 0; simbolo < longitudes.length; simbolo++) {
+            int longitud = longitudes[simbolo];
+            if (longitud == 0 || longitud > BITS_VENTANA)
+                continue;
+
+            int libres = BITS_VENTANA - longitud;
+            int desde = codigos[simbolo] << libres;
+            for (int k = desde; k < desde + (1 << libres); k++)
+                primero[k] = (simbolo << 8) | longitud;
+        }
+
+        int mascara = (1 << BITS_VENTANA) - 1;
+        for (int ventana = 0; ventana < tabla.length; ventana++) {
+            int consumidos = 0, cantidad = 0, entrada = 0;
+
+            while (cantidad < SIMBOLOS_POR_ENTRADA) {
+                // Los bits ya consumidos se descartan y los que faltan se completan con ceros, por lo que
+                // el código sólo es válido si entra en los bits que quedan de la ventana
+                int candidato = primero[(ventana << consumidos) & mascara];
+                int longitud = candidato & 0xFF;
+
+                if (longitud == 0 || longitud > BITS_VENTANA - consumidos)
+                    break;
+
+                entrada |= (candidato >>> 8) << (DESPLAZAMIENTO_SIMBOLOS + 8 * cantidad);
+                consumidos += longitud;
+                cantidad++;
+            }
+
+            tabla[ventana] = entrada | (cantidad << DESPLAZAMIENTO_CANTIDAD) | consumidos;
+        }
+    }
+
+    /**
+     * Decodifica varios símbolos consecutivos del flujo de bits, depositándolos en el arreglo destino.
+     * @param lector Fuente de bits.
+     * @param destino Arreglo donde se depositan los símbolos.
+     * @param desde Posición del arreglo a partir de la cuál se escribe.
+     * @param cantidad Cantidad de símbolos a decodificar.
+     */
+    @Override
+    public void decodificar(LectorBits lector, int[] destino, int desde, int cantidad)
+    {
+        int i = desde;
+        int hasta = desde + cantidad;
+
+        // Mientras queden lugares para todos los símbolos de una entrada, se copian sin más controles
+        while (i <= hasta - SIMBOLOS_POR_ENTRADA) {
+            int entrada = tabla[lector.verBits(BITS_VENTANA)];
+            int simbolos = (entrada >>> DESPLAZAMIENTO_CANTIDAD) & 0x3;
+
+            if (simbolos == 0) {
+                destino[i++] = tabla_simple.decodificarSimbolo(lector);
+                continue;
+            }
+
+            lector.consumirBits(entrada & MASCARA_BITS);
+            entrada >>>= DESPLAZAMIENTO_SIMBOLOS;
+            for (int k = 0; k < simbolos; k++) {
+                destino[i++] = entrada & 0xFF;
+                entrada >>>= 8;
+            }
+        }
+
+        // Los últimos símbolos se decodifican de a uno para no leer de más
+        while (i < hasta)
+            destino[i++] = tabla_simple.decodificarSimbolo(lector);
+    }
+}
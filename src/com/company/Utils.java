@@ -2,7 +2,6 @@ package com.company;
 
 import com.google.common.base.Splitter;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.math.BigDecimal;
@@ -49,25 +48,23 @@ public class Utils {
      * @return Correlación entre las dos cadenas expresado con doble precisión.
      */
     public static double getCorrelacion(int[] cadena_1, int[] cadena_2) {
-        double numerador = 0;
-        double denominador = 0;
-        double aux_1 = 0, aux_2 = 0;
-
-        for (int i = 0; i < cadena_1.length; i++)
-            numerador += cadena_1[i] * cadena_2[i];
+        long numerador = 0;
+        long aux_1 = 0, aux_2 = 0;
 
         for (int i = 0; i < cadena_1.length; i++) {
-            aux_1 += Math.pow(cadena_1[i], 2.0d);
-            aux_2 += Math.pow(cadena_2[i], 2.0d);
+            numerador += cadena_1[i] * cadena_2[i];
+            aux_1 += cadena_1[i] * cadena_1[i];
+            aux_2 += cadena_2[i] * cadena_2[i];
         }
 
-        denominador = Math.sqrt(aux_1 * aux_2);
+        double denominador = Math.sqrt((double) aux_1 * (double) aux_2);
 
         return numerador / denominador;
     }
 
     /**
      * Método estático que retorna la columna en donde arranca la máxima correlación entre dos matrices.
+     * Las correlaciones de todos los anchos se calculan de una sola vez con BusquedaSolapamiento.
      * @param img1 Matriz que representa la fuente 1 al evaluar correlación.
      * @param img2 Matriz que representa la fuente 2 al evaluar correlación.
      * @param maximo_columnas_comparar Ancho máximo de las submatrices a comparar.
@@ -75,23 +72,38 @@ public class Utils {
      * @return La columna donde arranca la cadena con la máxima correlación.
      */
     public static int getColumnasCoincidentes(int[][] img1, int[][] img2, int maximo_columnas_comparar, boolean comparar_en_orden) {
-        double max_corr = 0.d;
-        int columna = 0;
-        for (int i = maximo_columnas_comparar; i > 0; i--) {
-            int[] submat_1 = Utils.getSubmatriz(img1, i, !comparar_en_orden);
-            int[] submat_2 = Utils.getSubmatriz(img2, i, comparar_en_orden);
-            double corr = Utils.getCorrelacion(submat_1, submat_2);
-
-            if (corr > max_corr) {
-                max_corr=corr;
-                columna=i;
-
-                if( corr == 1.0d)
-                    return i;
-            }
-        }
+        return getBusqueda(img1, img2, maximo_columnas_comparar, comparar_en_orden).getColumnasCoincidentes();
+    }
+
+    /**
+     * Método estático que retorna la columna en donde arranca la máxima correlación entre dos imágenes, leyendo
+     * los píxeles directamente de sus vistas.
+     * @param img1 Vista que representa la fuente 1 al evaluar correlación.
+     * @param img2 Vista que representa la fuente 2 al evaluar correlación.
+     * @param maximo_columnas_comparar Ancho máximo de las submatrices a comparar.
+     * @param comparar_en_orden TRUE: compara img1 con img2; FALSE: compara img2 con img1.
+     * @return La columna donde arranca la cadena con la máxima correlación.
+     */
+    public static int getColumnasCoincidentes(VistaImagen img1, VistaImagen img2, int maximo_columnas_comparar, boolean comparar_en_orden) {
+        return getBusqueda(img1, img2, maximo_columnas_comparar, comparar_en_orden).getColumnasCoincidentes();
+    }
 
-        return columna;
+    /**
+     * Método estático que retorna la columna en donde arranca la máxima correlación entre dos matrices,
+     * buscándola con BusquedaPiramidal: en forma exhaustiva sólo sobre versiones reducidas de las matrices y
+     * refinando luego en cada resolución mayor. A diferencia de la búsqueda exhaustiva, no garantiza encontrar
+     * la misma columna: un máximo que no sobresale en ninguna resolución reducida puede perderse.
+     * @param img1 Matriz que representa la fuente 1 al evaluar correlación.
+     * @param img2 Matriz que representa la fuente 2 al evaluar correlación.
+     * @param maximo_columnas_comparar Ancho máximo de las submatrices a comparar.
+     * @param niveles Cantidad máxima de reducciones a la mitad.
+     * @param comparar_en_orden TRUE: compara img1 con img2; FALSE: compara img2 con img1.
+     * @return La columna donde arranca la cadena con la máxima correlación.
+     */
+    public static int getColumnasCoincidentes(int[][] img1, int[][] img2, int maximo_columnas_comparar, int niveles, boolean comparar_en_orden) {
+        BusquedaPiramidal busqueda = comparar_en_orden ? new BusquedaPiramidal(img1, img2, maximo_columnas_comparar, 0, niveles)
+                : new BusquedaPiramidal(img2, img1, maximo_columnas_comparar, 0, niveles);
+        return busqueda.getColumnasCoincidentes();
     }
 
     /**
@@ -122,6 +134,18 @@ public class Utils {
         return aux;
     }
 
+    /**
+     * Método estático que recorta una vista a sus primeras o últimas columnas, sin copiar píxeles.
+     * @param vista Vista de la cual extraer la subvista.
+     * @param cant_columnas Ancho de la subvista a extraer.
+     * @param desde_principio TRUE: extrae de izquierda a derecha; FALSE: extrae de derecha a izquierda.
+     * @return Subvista, que comparte el arreglo con la vista fuente.
+     */
+    public static VistaImagen getSubmatriz(VistaImagen vista, int cant_columnas, boolean desde_principio) {
+        int col_inicial = desde_principio ? 0 : vista.getAncho() - cant_columnas;
+        return vista.recortar(col_inicial, 0, cant_columnas, vista.getAlto());
+    }
+
     /**
      * Método estático que une tres matrices una al lado de la otra, en el orden en que son pasadas
      * por parámetro.
@@ -170,6 +194,32 @@ public class Utils {
         return matriz;
     }
 
+    /**
+     * Método estático que une cualquier cantidad de vistas una al lado de la otra, en el orden de la lista,
+     * copiando cada fila de cada vista con un único System.arraycopy().
+     * @param vistas Vistas fuente, todas del alto del destino.
+     * @param destino Vista destino, cuyo ancho es la suma de los anchos de las fuentes.
+     */
+    public static void juntarMatrices(List<VistaImagen> vistas, VistaImagen destino) {
+        int ancho = 0;
+        for (VistaImagen vista : vistas) {
+            if (vista.getAlto() != destino.getAlto())
+                throw new IllegalArgumentException("Las vistas deben tener el alto del destino");
+            ancho += vista.getAncho();
+        }
+        if (ancho != destino.getAncho())
+            throw new IllegalArgumentException("El destino debe medir " + ancho + " columnas de ancho");
+
+        int[] datos = destino.getDatos();
+        for (int fila = 0; fila < destino.getAlto(); fila++) {
+            int posicion = destino.getIndice(0, fila);
+            for (VistaImagen vista : vistas) {
+                vista.copiarFila(fila, datos, posicion);
+                posicion += vista.getAncho();
+            }
+        }
+    }
+
     /**
      * Método estático que "aplana" una matriz, es decir, expresándola en un arreglo unidimensional.
      * @param matriz Matriz 2D a redudir de dimensión.
@@ -189,6 +239,15 @@ public class Utils {
         return aux;
     }
 
+    /**
+     * Método estático que copia los píxeles de una vista a un arreglo unidimensional.
+     * @param vista Vista a serializar.
+     * @return Arreglo 1D, resultante de leer la vista de izquierda a derecha, de arriba a abajo.
+     */
+    public static int[] serializarMatriz(VistaImagen vista) {
+        return vista.toArreglo();
+    }
+
     /**
      * Método estático que genera una matriz 2D a partir de un arreglo 1D, dadas las dimensiones
      * deseadas de la matriz bidimensional.
@@ -219,10 +278,7 @@ public class Utils {
     public static int[] convertirArregloRGBaGrises(int[] arreglo_rgb)
     {
         int[] arr = new int[arreglo_rgb.length];
-
-        for (int i = 0; i < arr.length; i++)
-            arr[i] = new Color(arreglo_rgb[i]).getRed();
-
+        ConversorPixeles.rgbAGrises(arreglo_rgb, arr);
         return arr;
     }
 
@@ -235,18 +291,25 @@ public class Utils {
      */
     public static int[][] generarMatrizRGB(BufferedImage img, boolean convertir_a_grises)
     {
-        int[] pixeles = img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
-
-        if (convertir_a_grises) {
-            int[] pixeles_gris = new int[pixeles.length];
-            for (int i = 0; i < pixeles.length; i++)
-                pixeles_gris[i] = new Color(pixeles[i]).getRed();
-            return Utils.expandirArregloMatriz(pixeles_gris, img.getWidth(), img.getHeight());
-        }
+        int[] pixeles = convertir_a_grises ? ConversorPixeles.getGrises(img, null) : ConversorPixeles.getRGB(img, null);
 
         return Utils.expandirArregloMatriz(pixeles, img.getWidth(), img.getHeight());
     }
 
+    /**
+     * Método estático que convierte una imagen a un arreglo plano de píxeles y genera una vista sobre él, con la
+     * posibilidad de expresarla en escala de grises.
+     * @param img Imagen fuente.
+     * @param convertir_a_grises TRUE: vista expresada en escala de grises; FALSE: vista expresada en valores RGB.
+     * @return Vista sobre los píxeles de la imagen.
+     */
+    public static VistaImagen generarVista(BufferedImage img, boolean convertir_a_grises)
+    {
+        int[] pixeles = convertir_a_grises ? ConversorPixeles.getGrises(img, null) : ConversorPixeles.getRGB(img, null);
+
+        return new VistaImagen(pixeles, img.getWidth(), img.getHeight());
+    }
+
     /**
      * Método estático que devuelve el promedio de un arreglo de enteros.
      * @param arreglo Arreglo de enteros fuente.
@@ -304,6 +367,23 @@ public class Utils {
         return resultado;
     }
 
+    /**
+     * Método estático que cuenta la cantidad de ocurrencias de cada símbolo en una tira de símbolos.
+     * A diferencia de getProbabilidades(), el resultado es exacto y no requiere mapas ni divisiones.
+     * @param arreglo Cadena de símbolos a analizar.
+     * @param cantidad_simbolos Tamaño del alfabeto; los símbolos deben ser menores a este valor.
+     * @return Arreglo indexado por símbolo con su cantidad de ocurrencias.
+     */
+    public static int[] getConteos(int[] arreglo, int cantidad_simbolos)
+    {
+        int[] conteos = new int[cantidad_simbolos];
+
+        for (int simbolo : arreglo)
+            conteos[simbolo]++;
+
+        return conteos;
+    }
+
     /**
      * Método estático que transforma una matriz 2D de valores RGB a su equivalente en escala de grises.
      * @param matriz_rgb Matriz 2D expresada en valores RGB.
@@ -314,12 +394,24 @@ public class Utils {
         int[][] matriz_grises = new int[matriz_rgb.length][matriz_rgb[0].length];
 
         for (int i = 0; i < matriz_rgb.length; i++)
-            for (int j = 0; j < matriz_rgb[0].length; j++)
-                matriz_grises[i][j] = new Color(matriz_rgb[i][j]).getRed();
+            ConversorPixeles.rgbAGrises(matriz_rgb[i], matriz_grises[i]);
 
         return matriz_grises;
     }
 
+    /**
+     * Método estático que transforma una vista de valores RGB a escala de grises, escribiendo en otra vista de
+     * iguales dimensiones. Ambas vistas pueden compartir el arreglo.
+     * @param vista_rgb Vista expresada en valores RGB.
+     * @param vista_grises Vista destino.
+     */
+    public static void convertirMatrizRGBaGrises(VistaImagen vista_rgb, VistaImagen vista_grises)
+    {
+        for (int i = 0; i < vista_rgb.getAlto(); i++)
+            ConversorPixeles.rgbAGrises(vista_rgb.getDatos(), vista_rgb.getIndice(0, i), vista_grises.getDatos(),
+                    vista_grises.getIndice(0, i), vista_rgb.getAncho());
+    }
+
     /**
      * Método estático que transforma una matriz 2D de valores en escala de grises a su equivalente
      * en valores RGB.
@@ -330,15 +422,25 @@ public class Utils {
     {
         int[][] matriz_rgb = new int[matriz_grises.length][matriz_grises[0].length];
 
-        for (int i = 0; i < matriz_grises.length; i++) {
-            for (int j = 0; j < matriz_grises[0].length; j++) {
-                matriz_rgb[i][j] = new Color(matriz_grises[i][j], matriz_grises[i][j], matriz_grises[i][j]).getRGB();
-            }
-        }
+        for (int i = 0; i < matriz_grises.length; i++)
+            ConversorPixeles.grisesARGB(matriz_grises[i], matriz_rgb[i]);
 
         return matriz_rgb;
     }
 
+    /**
+     * Método estático que transforma una vista en escala de grises a valores RGB, escribiendo en otra vista de
+     * iguales dimensiones, por ejemplo la del raster de una imagen. Ambas vistas pueden compartir el arreglo.
+     * @param vista_grises Vista expresada en escala de grises.
+     * @param vista_rgb Vista destino.
+     */
+    public static void convertirMatrizGrisesRGB(VistaImagen vista_grises, VistaImagen vista_rgb)
+    {
+        for (int i = 0; i < vista_grises.getAlto(); i++)
+            ConversorPixeles.grisesARGB(vista_grises.getDatos(), vista_grises.getIndice(0, i), vista_rgb.getDatos(),
+                    vista_rgb.getIndice(0, i), vista_grises.getAncho());
+    }
+
     public static void modificarLista(int matriz1[][], int matriz2[][], int matriz3[][], List<int [] []>  resultado){
         resultado.clear();
         resultado.add(matriz1);
@@ -348,87 +450,21 @@ public class Utils {
 
     /**
      * Método estático que se encarga de unir de la mejor manera tres matrices (expresadas en escalas de grises)
-     * que representen una cadena de símbolos, en función al cálculo de la correlación.
+     * que representen una cadena de símbolos, en función al cálculo de la correlación. El orden se obtiene con
+     * OrdenadorPanoramica, que admite cualquier cantidad de imágenes.
      * @param matriz1 Matriz fuente 1.
      * @param matriz2 Matriz fuente 2.
      * @param matriz3 Matriz fuente 3.
-     * @return Lista de matrices dispuestas en orden, de izquierda a derecha.
+     * @return Lista de matrices dispuestas en orden, de derecha a izquierda.
      */
     public static List<int[][]> unir(int[][] matriz1, int[][] matriz2, int[][] matriz3) {
 
+        List<int[][]> matrices = Arrays.asList(matriz1, matriz2, matriz3);
+        int[] orden = new OrdenadorPanoramica(matrices, CANTIDAD_COLUMNAS).getOrden();
 
-        java.util.List<int[][]> resultado = new ArrayList<>();
-        double max_corr = 0;
-
-        // Secuencia 3 1 2
-        double corrIzq1 = Utils.getMaxCorrelacion(matriz1, matriz2, CANTIDAD_COLUMNAS, true);
-        double corrDer1 = Utils.getMaxCorrelacion(matriz3, matriz1, CANTIDAD_COLUMNAS, true);
-
-        double suma1 = corrIzq1 + corrDer1;
-
-        // Secuencia 2 1 3
-
-        double corrIzq1b = Utils.getMaxCorrelacion(matriz1, matriz3, CANTIDAD_COLUMNAS, true);
-        double corrDer1b = Utils.getMaxCorrelacion(matriz2, matriz1, CANTIDAD_COLUMNAS, true);
-
-        double suma1b = corrIzq1b + corrDer1b;
-
-        if (suma1b >= suma1) {
-            max_corr = suma1b;
-            modificarLista(matriz3, matriz1, matriz2, resultado);
-
-
-        } else {
-            max_corr = suma1;
-            modificarLista(matriz2, matriz1, matriz3, resultado);
-
-        }
-
-        // Secuencia 1 2 3
-        double corrIzq2 = Utils.getMaxCorrelacion(matriz2, matriz3, CANTIDAD_COLUMNAS, true);
-        double corrDer2 = Utils.getMaxCorrelacion(matriz1, matriz2, CANTIDAD_COLUMNAS, true);
-
-        double suma2 = corrIzq2 + corrDer2;
-
-        if (suma2 >= max_corr) {
-            max_corr = suma2;
-            modificarLista(matriz3, matriz2, matriz1, resultado);
-
-        }
-        // Secuencia 3 2 1
-
-        double corrIzq2b = Utils.getMaxCorrelacion(matriz2, matriz1, CANTIDAD_COLUMNAS, true);
-        double corrDer2b = Utils.getMaxCorrelacion(matriz3, matriz2, CANTIDAD_COLUMNAS, true);
-
-        double suma2b = corrIzq2b + corrDer2b;
-
-        if (suma2b >= max_corr) {
-            max_corr = suma2b;
-            modificarLista(matriz1, matriz2, matriz3, resultado);
-
-        }
-        // Secuencia 1 3 2
-        double corrIzq3 = Utils.getMaxCorrelacion(matriz3, matriz2, CANTIDAD_COLUMNAS, true);
-        double corrDer3 = Utils.getMaxCorrelacion(matriz1, matriz3, CANTIDAD_COLUMNAS, true);
-
-        double suma3 = corrIzq3 + corrDer3;
-
-        if (suma3 >= max_corr) {
-            max_corr = suma3;
-            modificarLista(matriz2, matriz3, matriz1, resultado);
-        }
-
-        // Secuencia 2 3 1
-        double corrIzq3b = Utils.getMaxCorrelacion(matriz3, matriz1, CANTIDAD_COLUMNAS, true);
-        double corrDer3b = Utils.getMaxCorrelacion(matriz2, matriz3, CANTIDAD_COLUMNAS, true);
-
-        double suma3b = corrIzq3b + corrDer3b;
-
-        if (suma3b >= max_corr) {
-            max_corr = suma3b;
-            modificarLista(matriz1, matriz3, matriz2, resultado);
-        }
-
+        List<int[][]> resultado = new ArrayList<>();
+        for (int i = orden.length - 1; i >= 0; i--)
+            resultado.add(matrices.get(orden[i]));
 
         return resultado;
     }
@@ -436,23 +472,56 @@ public class Utils {
 
 
 
+    /**
+     * Método estático que retorna la máxima correlación entre dos matrices, entre todos los anchos de
+     * solapamiento posibles.
+     * @param matriz Matriz que representa la fuente 1 al evaluar correlación.
+     * @param matriz2 Matriz que representa la fuente 2 al evaluar correlación.
+     * @param cant_col Ancho máximo de las submatrices a comparar.
+     * @param comparar_en_orden TRUE: matriz queda a la izquierda de matriz2; FALSE: a la derecha.
+     * @return Máxima correlación encontrada.
+     */
     public static double getMaxCorrelacion(int[][] matriz, int[][] matriz2, int cant_col, boolean comparar_en_orden) {
+        return getBusqueda(matriz, matriz2, cant_col, comparar_en_orden).getMaxCorrelacion();
+    }
 
-        double max_corr = 0.d;
-
-
-        for (int i = cant_col; i > 0; i--) {
-            int[] submat_1 = Utils.getSubmatriz(matriz, i, !comparar_en_orden);
-            int[] submat_2 = Utils.getSubmatriz(matriz2, i, comparar_en_orden);
-            double corr = Utils.getCorrelacion(submat_1, submat_2);
-
-            if (corr > max_corr) {
-                max_corr = corr;
-            }
-        }
-        return max_corr;
+    /**
+     * Método estático que retorna la máxima correlación entre dos imágenes, entre todos los anchos de
+     * solapamiento posibles, leyendo los píxeles directamente de sus vistas.
+     * @param vista Vista que representa la fuente 1 al evaluar correlación.
+     * @param vista2 Vista que representa la fuente 2 al evaluar correlación.
+     * @param cant_col Ancho máximo de las submatrices a comparar.
+     * @param comparar_en_orden TRUE: vista queda a la izquierda de vista2; FALSE: a la derecha.
+     * @return Máxima correlación encontrada.
+     */
+    public static double getMaxCorrelacion(VistaImagen vista, VistaImagen vista2, int cant_col, boolean comparar_en_orden) {
+        return getBusqueda(vista, vista2, cant_col, comparar_en_orden).getMaxCorrelacion();
+    }
 
+    /**
+     * Método privado que genera la búsqueda de solapamiento entre dos matrices, ubicando a la primera a la
+     * izquierda o a la derecha de la segunda.
+     * @param matriz Matriz fuente 1.
+     * @param matriz2 Matriz fuente 2.
+     * @param cant_col Ancho máximo de solapamiento.
+     * @param comparar_en_orden TRUE: matriz queda a la izquierda de matriz2; FALSE: a la derecha.
+     * @return Búsqueda con la correlación de cada ancho.
+     */
+    private static BusquedaSolapamiento getBusqueda(int[][] matriz, int[][] matriz2, int cant_col, boolean comparar_en_orden) {
+        return comparar_en_orden ? new BusquedaSolapamiento(matriz, matriz2, cant_col) : new BusquedaSolapamiento(matriz2, matriz, cant_col);
+    }
 
+    /**
+     * Método privado que genera la búsqueda de solapamiento entre dos vistas, ubicando a la primera a la
+     * izquierda o a la derecha de la segunda.
+     * @param vista Vista fuente 1.
+     * @param vista2 Vista fuente 2.
+     * @param cant_col Ancho máximo de solapamiento.
+     * @param comparar_en_orden TRUE: vista queda a la izquierda de vista2; FALSE: a la derecha.
+     * @return Búsqueda con la correlación de cada ancho.
+     */
+    private static BusquedaSolapamiento getBusqueda(VistaImagen vista, VistaImagen vista2, int cant_col, boolean comparar_en_orden) {
+        return comparar_en_orden ? new BusquedaSolapamiento(vista, vista2, cant_col) : new BusquedaSolapamiento(vista2, vista, cant_col);
     }
 
     /**
@@ -501,16 +570,15 @@ public class Utils {
      * @param img Imagen base.
      * @param codificacion Mapa que relaciona cada símbolo con su correspondiente versión en Huffman (binaria).
      * @return Cadena de texto en 0s y 1s que representa a la imagen deseada.
+     * @deprecated Ocupa 16 bits de memoria por cada bit de salida; usar
+     * {@link CodificadorHuffmanNuevo#comprimir(int[], int[], byte[], String, int, int)}.
      */
+    @Deprecated
     public static String getCadenaPixeles(BufferedImage img, Map<String, String> codificacion){
-        int[] pixeles = img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
-        int[] pixeles_rgb = new int[pixeles.length];
+        int[] pixeles_rgb = ConversorPixeles.getGrises(img, null);
 
         StringBuilder resultado  = new StringBuilder();
 
-        for (int i = 0; i < pixeles.length; i++)
-            pixeles_rgb[i] = new Color(pixeles[i]).getRed();
-
         for (int aPixeles_rgb : pixeles_rgb) {
             String clave = Integer.toString(aPixeles_rgb);
             resultado.append(codificacion.get(clave));
@@ -540,7 +608,10 @@ public class Utils {
      * @param umbral Umbral tolerado, indica factor de compresión.
      * @param alto alto de la imagen a comprimir
      * @param ancho de la imagen a comprimir
+     * @deprecated Genera un archivo de texto varias veces más grande que el binario; usar
+     * {@link CodificadorRunLength#comprimir(int[], int, String, int, int)}.
      */
+    @Deprecated
     public static void runLength (int [] arr, int umbral,int alto, int ancho){
 
         int i=0;
@@ -582,7 +653,9 @@ public class Utils {
      * un archivo de texto que contiene como cabecera el ancho y alto de la imagen. Luego cantidad de ocurrencias para cada símbolo a medida que se
      * recorre la imagen.
      * @return Arreglo unidimensional que representa la imagen generada.
+     * @deprecated Arma cada número caracter por caracter; usar {@link CodificadorRunLength#descomprimir(File)}.
      */
+    @Deprecated
     public static int [] getArregloRunLength(){
 
 
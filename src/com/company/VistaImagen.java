@@ -0,0 +1,203 @@
+package com.company;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Clase que representa una ventana rectangular sobre un arreglo de píxeles, sin copiarlos. El píxel (x, y) de la
+ * vista se encuentra en datos[inicio + y * paso + x], por lo que una misma imagen puede recorrerse entera o
+ * recortada, y también puede verse directamente el arreglo que respalda a una BufferedImage de tipo entero.
+ *
+ * Recortar una vista no copia píxeles; las copias se hacen de a una fila por vez con System.arraycopy().
+ * @author Horquin Enzo, Serrano Francisco
+ */
+public class VistaImagen {
+
+    private final int[] datos;
+    private final int inicio;
+    private final int ancho;
+    private final int alto;
+    private final int paso;
+
+    /**
+     * Genera una vista sobre un arreglo que contiene una imagen completa, fila tras fila y sin relleno.
+     * @param datos Arreglo de píxeles.
+     * @param ancho Ancho de la imagen.
+     * @param alto Alto de la imagen.
+     */
+    public VistaImagen(int[] datos, int ancho, int alto) {
+        this(datos, 0, ancho, alto, ancho);
+    }
+
+    /**
+     * Genera una vista sobre una ventana de un arreglo de píxeles.
+     * @param datos Arreglo de píxeles.
+     * @param inicio Posición en el arreglo del píxel (0, 0) de la vista.
+     * @param ancho Ancho de la vista.
+     * @param alto Alto de la vista.
+     * @param paso Distancia en el arreglo entre dos filas consecutivas.
+     */
+    public VistaImagen(int[] datos, int inicio, int ancho, int alto, int paso)
+    {
+        if (ancho < 0 || alto < 0 || inicio < 0 || (alto > 0 && ancho > paso) ||
+                (alto > 0 && ancho > 0 && (long) inicio + (long) (alto - 1) * paso + ancho > datos.length))
+            throw new IllegalArgumentException("La vista de " + ancho + " x " + alto + " excede el arreglo de " + datos.length + " elementos");
+
+        this.datos = datos;
+        this.inicio = inicio;
+        this.ancho = ancho;
+        this.alto = alto;
+        this.paso = paso;
+    }
+
+    /**
+     * Método estático que genera una vista sobre el arreglo que respalda a una imagen de tipo TYPE_INT_RGB,
+     * TYPE_INT_ARGB o TYPE_INT_BGR, incluso si fue obtenida con getSubimage(). Escribir en la vista modifica la
+     * imagen.
+     * @param img Imagen respaldada por un DataBufferInt.
+     * @return Vista sobre los píxeles de la imagen, en el formato en que los almacena.
+     */
+    public static VistaImagen deRaster(BufferedImage img)
+    {
+        WritableRaster raster = img.getRaster();
+        if (!(raster.getDataBuffer() instanceof DataBufferInt) || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel) ||
+                raster.getDataBuffer().getNumBanks() != 1)
+            throw new IllegalArgumentException("La imagen no está respaldada por un único arreglo de enteros");
+
+        int paso = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        int inicio = raster.getDataBuffer().getOffset() - raster.getSampleModelTranslateY() * paso - raster.getSampleModelTranslateX();
+
+        return new VistaImagen(((DataBufferInt) raster.getDataBuffer()).getData(), inicio, img.getWidth(), img.getHeight(), paso);
+    }
+
+    /**
+     * Método estático que copia una franja de columnas de una matriz en un arreglo nuevo y genera una vista sobre él.
+     * @param matriz Matriz de píxeles.
+     * @param columna Primera columna a copiar.
+     * @param ancho Cantidad de columnas a copiar.
+     * @return Vista sobre la copia.
+     */
+    public static VistaImagen deMatriz(int[][] matriz, int columna, int ancho)
+    {
+        int[] datos = new int[matriz.length * ancho];
+        for (int y = 0; y < matriz.length; y++)
+            System.arraycopy(matriz[y], columna, datos, y * ancho, ancho);
+
+        return new VistaImagen(datos, ancho, matriz.length);
+    }
+
+    /**
+     * Método estático que copia una matriz en un arreglo nuevo y genera una vista sobre él.
+     * @param matriz Matriz de píxeles.
+     * @return Vista sobre la copia.
+     */
+    public static VistaImagen deMatriz(int[][] matriz) {
+        return deMatriz(matriz, 0, matriz.length == 0 ? 0 : matriz[0].length);
+    }
+
+    /**
+     * Retorna el arreglo sobre el que se define la vista.
+     * @return Arreglo de píxeles.
+     */
+    public int[] getDatos() {
+        return datos;
+    }
+
+    /**
+     * Retorna el ancho de la vista.
+     * @return Ancho, en píxeles.
+     */
+    public int getAncho() {
+        return ancho;
+    }
+
+    /**
+     * Retorna el alto de la vista.
+     * @return Alto, en píxeles.
+     */
+    public int getAlto() {
+        return alto;
+    }
+
+    /**
+     * Retorna la distancia en el arreglo entre dos filas consecutivas.
+     * @return Paso entre filas.
+     */
+    public int getPaso() {
+        return paso;
+    }
+
+    /**
+     * Retorna la posición en el arreglo de un píxel de la vista.
+     * @param x Columna del píxel.
+     * @param y Fila del píxel.
+     * @return Posición del píxel en getDatos().
+     */
+    public int getIndice(int x, int y) {
+        return inicio + y * paso + x;
+    }
+
+    /**
+     * Retorna el valor de un píxel de la vista.
+     * @param x Columna del píxel.
+     * @param y Fila del píxel.
+     * @return Valor del píxel.
+     */
+    public int get(int x, int y) {
+        return datos[inicio + y * paso + x];
+    }
+
+    /**
+     * Genera una vista sobre una ventana de esta vista, sin copiar píxeles.
+     * @param x Primera columna de la ventana.
+     * @param y Primera fila de la ventana.
+     * @param ancho Ancho de la ventana.
+     * @param alto Alto de la ventana.
+     * @return Vista recortada, que comparte el arreglo con esta.
+     */
+    public VistaImagen recortar(int x, int y, int ancho, int alto)
+    {
+        if (x < 0 || y < 0 || x + ancho > this.ancho || y + alto > this.alto)
+            throw new IllegalArgumentException("El recorte excede la vista de " + this.ancho + " x " + this.alto);
+
+        return new VistaImagen(datos, getIndice(x, y), ancho, alto, paso);
+    }
+
+    /**
+     * Copia una fila de la vista a un arreglo.
+     * @param y Fila a copiar.
+     * @param destino Arreglo destino.
+     * @param posicion Posición del destino en la que se copia el primer píxel.
+     */
+    public void copiarFila(int y, int[] destino, int posicion) {
+        System.arraycopy(datos, inicio + y * paso, destino, posicion, ancho);
+    }
+
+    /**
+     * Copia los píxeles de la vista a un arreglo nuevo, fila tras fila y sin relleno.
+     * @return Arreglo de ancho x alto píxeles.
+     */
+    public int[] toArreglo()
+    {
+        int[] arreglo = new int[ancho * alto];
+        for (int y = 0; y < alto; y++)
+            copiarFila(y, arreglo, y * ancho);
+
+        return arreglo;
+    }
+
+    /**
+     * Copia los píxeles de la vista a una matriz nueva.
+     * @return Matriz de alto filas y ancho columnas.
+     */
+    public int[][] toMatriz()
+    {
+        int[][] matriz = new int[alto][ancho];
+        for (int y = 0; y < alto; y++)
+            copiarFila(y, matriz[y], 0);
+
+        return matriz;
+    }
+}